@@ -1,11 +1,57 @@
 package com.example.bookapi;
 
+import com.example.bookapi.dto.BookImportSummary;
+import com.example.bookapi.importer.BookImporter;
+import com.example.bookapi.importer.ImportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
 
+import java.nio.file.Path;
+import java.util.Arrays;
+
+@Slf4j
 @SpringBootApplication
 public class BookApiApplication {
     public static void main(String[] args) {
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith("--import="))) {
+            System.exit(importBooks(args));
+        }
         SpringApplication.run(BookApiApplication.class, args);
     }
-}
\ No newline at end of file
+
+    /**
+     * Command-line import: {@code --import=<file> [--import-format=csv|ndjson] [--import-resume=false]}.
+     * Runs without the web server or the search index, prints the summary as JSON and exits,
+     * with status 1 if the import failed.
+     * @param args the command-line arguments
+     * @return the exit status
+     */
+    static int importBooks(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookApiApplication.class)
+                .web(WebApplicationType.NONE)
+                // The in-memory search index would grow with every imported book and is never queried here
+                .properties("book-api.search.enabled=false")
+                .run(args);
+        int status = 0;
+        try {
+            Environment environment = context.getEnvironment();
+            BookImportSummary summary = context.getBean(BookImporter.class).importFile(
+                    Path.of(environment.getRequiredProperty("import")),
+                    ImportFormat.of(environment.getProperty("import-format")),
+                    environment.getProperty("import-resume", Boolean.class, true));
+            System.out.println(context.getBean(ObjectMapper.class).writerWithDefaultPrettyPrinter()
+                    .writeValueAsString(summary));
+        } catch (Exception e) {
+            log.error("Import failed", e);
+            status = 1;
+        }
+        int exitStatus = status;
+        return SpringApplication.exit(context, () -> exitStatus);
+    }
+}
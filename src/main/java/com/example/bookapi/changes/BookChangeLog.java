@@ -0,0 +1,303 @@
+package com.example.bookapi.changes;
+
+import com.example.bookapi.dto.BookChangePageResponse;
+import com.example.bookapi.dto.BookChangeResponse;
+import com.example.bookapi.exception.ChangeCursorExpiredException;
+import com.example.bookapi.exception.InvalidRequestException;
+import com.example.bookapi.model.BookChange;
+import com.example.bookapi.repository.BookChangeRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of book changes, so mirrors of the catalog can apply deltas instead of re-reading it.
+ * <p>
+ * The book service records every create, update and delete in the transaction that makes it, so an entry
+ * commits or rolls back with its change. Sequence numbers are handed out here rather than by the database,
+ * because entries must become visible in sequence order: a mirror that has read entry 12 would never see an
+ * entry 11 that commits after it. Readers therefore only see up to the entry before the first one of any
+ * transaction that is still open. Rolled-back entries leave gaps. Writes that bypass the book service are
+ * not logged.
+ * <p>
+ * A log that starts out empty is numbered from the current time in microseconds, so cursors kept across a
+ * restart of the in-memory database are recognised as belonging to an earlier log. A snapshot restore
+ * starts the log over with one creation per restored book ({@link #rebuild()}).
+ * <p>
+ * Compaction folds each book's entries older than {@code compact-after} into its latest one, so the log
+ * grows with the catalog rather than with its write rate, and replaying it from 0 still rebuilds the
+ * catalog. A deleted book compacts to a tombstone, which is kept so that no cursor is ever left behind.
+ */
+@Slf4j
+@Component
+public class BookChangeLog {
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int COMPACTION_CHUNK = 500;
+
+    private final BookChangeRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration compactAfter;
+    private final Duration compactInterval;
+    private final List<Runnable> commitListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-log-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private boolean loaded;
+    private long lastSeq;
+    private long firstSeq;
+    // The first sequence number of each transaction whose entries have not committed yet
+    private final TreeSet<Long> open = new TreeSet<>();
+
+    // Entries up to here are already one per book
+    private volatile long compactedThrough;
+
+    public BookChangeLog(BookChangeRepository repository, EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${book-api.changes.compact-after:1h}") Duration compactAfter,
+                         @Value("${book-api.changes.compact-interval:10m}") Duration compactInterval) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.compactAfter = compactAfter;
+        this.compactInterval = compactInterval;
+    }
+
+    /**
+     * Append an entry in the current transaction. It is numbered and timestamped here, and becomes visible
+     * to readers once the transaction completes.
+     * @param change the entry to append
+     */
+    public void record(BookChange change) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Book changes must be recorded in the transaction that makes them");
+        }
+        // Later entries of a transaction are numbered after its first, so only the first holds readers back
+        boolean firstInTransaction = !TransactionSynchronizationManager.hasResource(this);
+        long seq;
+        synchronized (this) {
+            load();
+            seq = ++lastSeq;
+            if (firstInTransaction) {
+                open.add(seq);
+            }
+            change.setSeq(seq);
+            change.setChangedAt(Instant.now());
+        }
+        if (firstInTransaction) {
+            TransactionSynchronizationManager.bindResource(this, seq);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BookChangeLog.this);
+                    synchronized (BookChangeLog.this) {
+                        open.remove(seq);
+                    }
+                    if (status == STATUS_COMMITTED) {
+                        commitListeners.forEach(Runnable::run);
+                    }
+                }
+            });
+        }
+        entityManager.persist(change);
+    }
+
+    /**
+     * Run a callback on the committing thread whenever entries become visible. It must not block.
+     * @param listener the callback
+     */
+    public void onCommit(Runnable listener) {
+        commitListeners.add(listener);
+    }
+
+    /**
+     * Read the committed entries after a cursor, oldest first.
+     * @param since 0 for the whole log, otherwise the {@code nextSince} of an earlier page
+     * @param limit the page size, at most {@value #MAX_PAGE_SIZE}
+     * @return the page
+     * @throws ChangeCursorExpiredException if the cursor belongs to an earlier log
+     */
+    public BookChangePageResponse changesSince(long since, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        checkCursor(since);
+        List<BookChange> changes = repository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeq(
+                since, horizon(), Limit.of(limit + 1));
+        boolean hasMore = changes.size() > limit;
+        List<BookChangeResponse> content = changes.stream()
+                .limit(limit)
+                .map(BookChangeResponse::fromEntity)
+                .toList();
+        return BookChangePageResponse.builder()
+                .changes(content)
+                .nextSince(content.isEmpty() ? since : content.get(content.size() - 1).getSeq())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * @param since a cursor
+     * @throws ChangeCursorExpiredException if the cursor belongs to an earlier log
+     */
+    public synchronized void checkCursor(long since) {
+        if (since < 0) {
+            throw new InvalidRequestException("since must not be negative");
+        }
+        load();
+        if (since != 0 && (since < firstSeq || since > lastSeq)) {
+            throw new ChangeCursorExpiredException(since);
+        }
+    }
+
+    // The last sequence number below every open transaction's entries
+    private synchronized long horizon() {
+        load();
+        return open.isEmpty() ? lastSeq : open.first() - 1;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        Long max = repository.findMaxSeq();
+        if (max == null) {
+            lastSeq = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            firstSeq = lastSeq + 1;
+        } else {
+            // Compaction may have removed the first entries, so every cursor up to the last is accepted
+            lastSeq = max;
+            firstSeq = 1;
+        }
+        compactedThrough = firstSeq - 1;
+        loaded = true;
+    }
+
+    /**
+     * Start the log over with a creation entry for every book in the table, after its rows were replaced
+     * around JPA. Numbering continues past the old log, whose cursors expire. Only safe while nothing else
+     * writes books.
+     * @return number of entries written
+     */
+    public synchronized int rebuild() {
+        load();
+        long start = lastSeq + 1;
+        int count = transactionTemplate.execute(status -> {
+            repository.deleteAllInBatch();
+            return repository.logEveryBookAsCreated(start);
+        });
+        firstSeq = start;
+        lastSeq = start + count - 1;
+        compactedThrough = lastSeq;
+        log.atInfo().addKeyValue("count", count).addKeyValue("firstSeq", start).log("Change log started over");
+        return count;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::compactSafely, compactInterval.toMillis(), compactInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void compactSafely() {
+        try {
+            compact(Instant.now().minus(compactAfter));
+        } catch (Exception e) {
+            log.atWarn().setCause(e).log("Change log compaction failed; retrying next round");
+        }
+    }
+
+    /**
+     * Fold the entries of each book written before the given instant into its latest such entry.
+     * Books are compacted in chunks of their own transactions, and each chunk leaves a valid log.
+     * @param before entries written before this are compacted
+     * @return number of entries removed
+     */
+    public int compact(Instant before) {
+        BookChange newest = repository.findFirstByChangedAtBeforeOrderByChangedAtDesc(before);
+        if (newest == null) {
+            return 0;
+        }
+        long from = compactedThrough;
+        // Entries of open transactions are not final yet
+        long upTo = Math.min(newest.getSeq(), horizon());
+        if (upTo <= from) {
+            return 0;
+        }
+        List<Long> bookIds = repository.findBookIdsChangedBetween(from, upTo);
+        int removed = 0;
+        for (int i = 0; i < bookIds.size(); i += COMPACTION_CHUNK) {
+            List<Long> chunk = bookIds.subList(i, Math.min(i + COMPACTION_CHUNK, bookIds.size()));
+            removed += transactionTemplate.execute(status -> compactBooks(chunk, upTo));
+        }
+        compactedThrough = upTo;
+        log.atInfo().addKeyValue("books", bookIds.size()).addKeyValue("removed", removed)
+                .addKeyValue("upTo", upTo).log("Change log compacted");
+        return removed;
+    }
+
+    private int compactBooks(List<Long> bookIds, long upTo) {
+        List<Long> superseded = new ArrayList<>();
+        BookChange previous = null;
+        // Grouped by book and in sequence order, so each entry is folded into the next one of its book
+        for (BookChange entry : repository.findByBookIdInAndSeqLessThanEqualOrderByBookIdAscSeqAsc(bookIds, upTo)) {
+            if (previous != null && previous.getBookId().equals(entry.getBookId())) {
+                fold(previous, entry);
+                superseded.add(previous.getSeq());
+            }
+            previous = entry;
+        }
+        repository.deleteAllByIdInBatch(superseded);
+        return superseded.size();
+    }
+
+    // An update only carries the fields it changed, so it takes the rest from the entry before it;
+    // replacements, creations and deletions stand on their own
+    private static void fold(BookChange earlier, BookChange later) {
+        if (later.getType() == BookChange.Type.REPLACED && earlier.getType() == BookChange.Type.CREATED) {
+            // Still the book's first entry for mirrors that start from the compacted log
+            later.setType(BookChange.Type.CREATED);
+        }
+        if (later.getType() != BookChange.Type.UPDATED) {
+            return;
+        }
+        later.setType(earlier.getType());
+        if (later.getTitle() == null) {
+            later.setTitle(earlier.getTitle());
+        }
+        if (later.getAuthor() == null) {
+            later.setAuthor(earlier.getAuthor());
+        }
+        if (later.getPublishedYear() == null) {
+            later.setPublishedYear(earlier.getPublishedYear());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.bookapi.changes;
+
+import com.example.bookapi.dto.BookChangePageResponse;
+import com.example.bookapi.dto.BookChangeResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes change log entries to Server-Sent Events subscribers as their transactions commit.
+ * <p>
+ * One thread serves every subscriber: after each commit it pages through the log from the oldest
+ * subscriber's cursor and sends each subscriber the entries past its own. Commits that arrive while a
+ * round is pending are covered by it. Each event's id is its sequence number, so a client that reconnects
+ * with {@code Last-Event-ID} resumes where it stopped. Idle streams get a comment now and then, which keeps
+ * proxies from closing them and finds clients that went away.
+ */
+@Slf4j
+@Component
+public class BookChangeStream {
+    private static final int PAGE_SIZE = 500;
+
+    private final BookChangeLog changeLog;
+    private final Duration timeout;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean roundPending = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookChangeStream(BookChangeLog changeLog,
+                            @Value("${book-api.changes.stream-timeout:30m}") Duration timeout,
+                            @Value("${book-api.changes.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.changeLog = changeLog;
+        this.timeout = timeout;
+        changeLog.onCommit(this::changed);
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        // Only touched by the stream thread
+        private long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    /**
+     * Open a stream of the entries after a cursor: first the ones already committed, then new ones as they commit.
+     * @param since 0 for the whole log, otherwise the sequence number of the last entry applied
+     * @return the emitter to return from the handler
+     * @throws com.example.bookapi.exception.ChangeCursorExpiredException if the cursor belongs to an earlier log
+     */
+    public SseEmitter subscribe(long since) {
+        // Checked before the stream opens, so an expired cursor still gets an error status
+        changeLog.checkCursor(since);
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), since);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        changed();
+        return subscriber.emitter;
+    }
+
+    private void changed() {
+        if (roundPending.compareAndSet(false, true)) {
+            executor.execute(this::publish);
+        }
+    }
+
+    private void publish() {
+        // Cleared first: a commit during this round schedules another
+        roundPending.set(false);
+        try {
+            while (!subscribers.isEmpty()) {
+                long since = subscribers.stream().mapToLong(s -> s.cursor).min().orElseThrow();
+                BookChangePageResponse page = changeLog.changesSince(since, PAGE_SIZE);
+                for (BookChangeResponse change : page.getChanges()) {
+                    for (Subscriber subscriber : subscribers) {
+                        if (change.getSeq() > subscriber.cursor) {
+                            send(subscriber, SseEmitter.event()
+                                    .id(String.valueOf(change.getSeq()))
+                                    .name("change")
+                                    .data(change, MediaType.APPLICATION_JSON));
+                            subscriber.cursor = change.getSeq();
+                        }
+                    }
+                }
+                if (!page.isHasMore()) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.atWarn().setCause(e).log("Change stream round failed; subscribers catch up on the next commit");
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            send(subscriber, SseEmitter.event().comment("keep-alive"));
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the stream timed out
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * @return number of open streams
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+}
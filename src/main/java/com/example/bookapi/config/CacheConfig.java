@@ -0,0 +1,20 @@
+package com.example.bookapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables Spring's cache abstraction.
+ * The cache provider (Caffeine) and its size/TTL bounds are configured in application.yml.
+ * The cache advice runs outside the transaction advice, so a transactional update evicts its
+ * book after committing and a concurrent read cannot cache the row it replaced.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+    /**
+     * Cache of {@link com.example.bookapi.dto.BookResponse} keyed by book id.
+     */
+    public static final String BOOKS_CACHE = "books";
+}
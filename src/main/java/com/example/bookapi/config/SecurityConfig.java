@@ -1,5 +1,11 @@
 package com.example.bookapi.config;
 
+import com.example.bookapi.ratelimit.AuthenticationRateLimitFilter;
+import com.example.bookapi.ratelimit.RateLimitFilter;
+import com.example.bookapi.ratelimit.RateLimiter;
+import com.example.bookapi.security.TokenAuthenticationFilter;
+import com.example.bookapi.security.TokenService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -9,10 +15,14 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+// Not needed by the command-line import, which runs without a web server
 @Configuration
+@ConditionalOnWebApplication
 @EnableMethodSecurity
 public class SecurityConfig {
     @Bean
@@ -34,17 +44,31 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService,
+                                           RateLimiter rateLimiter) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(org.springframework.security.config.http.SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                .requestMatchers("/auth/**").authenticated()
+                .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers(org.springframework.http.HttpMethod.DELETE, "/books/**").hasRole("ADMIN")
                 .requestMatchers("/books/**").authenticated()
+                .requestMatchers(org.springframework.http.HttpMethod.DELETE, "/orders/**").hasRole("ADMIN")
+                .requestMatchers("/orders/**").authenticated()
+                .requestMatchers(org.springframework.http.HttpMethod.POST, "/users/**").hasRole("ADMIN")
                 .anyRequest().permitAll()
             )
             .httpBasic();
+        // Bearer tokens are checked first, so token requests never reach the BCrypt check
+        http.addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class);
+        // Ahead of both credential checks, so an address sending bad credentials stops costing a BCrypt check
+        http.addFilterBefore(new AuthenticationRateLimitFilter(rateLimiter), TokenAuthenticationFilter.class);
+        // After authorization, so buckets are keyed by the authenticated principal
+        http.addFilterAfter(new RateLimitFilter(rateLimiter), AuthorizationFilter.class);
         // For H2 console
         http.headers(headers -> headers.frameOptions(frame -> frame.sameOrigin()));
         return http.build();
@@ -0,0 +1,25 @@
+package com.example.bookapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Checks the {@code virtual-threads} profile can take effect.
+ * Spring Boot silently ignores {@code spring.threads.virtual.enabled} before Java 21, which would leave
+ * the app on platform threads with a pool sized for virtual ones.
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class ThreadingConfig {
+    public ThreadingConfig(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < 21) {
+            log.warn("Profile 'virtual-threads' needs Java 21+, running on Java {}: using platform threads", javaVersion);
+        } else {
+            log.info("Handling requests on virtual threads with {} JDBC connections", poolSize);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bookapi.controller;
+
+import com.example.bookapi.dto.BookImportSummary;
+import com.example.bookapi.dto.SnapshotResponse;
+import com.example.bookapi.importer.BookImporter;
+import com.example.bookapi.importer.ImportFormat;
+import com.example.bookapi.snapshot.DatabaseSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * REST controller for administrative operations.
+ */
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    private final DatabaseSnapshot databaseSnapshot;
+    private final BookImporter bookImporter;
+
+    /**
+     * Write a binary snapshot of the database to the configured snapshot path.
+     * @return the snapshot path, row counts, size and duration
+     */
+    @PostMapping("/snapshot")
+    public SnapshotResponse snapshot() throws IOException {
+        return databaseSnapshot.dump();
+    }
+
+    /**
+     * Stream a CSV or NDJSON book file from the import directory into the catalog.
+     * Invalid rows are skipped and reported; an interrupted import continues from its last checkpoint.
+     * @param file the file, relative to the import directory
+     * @param format csv or ndjson; taken from the file extension when omitted
+     * @param resume whether to continue from a checkpoint left by an interrupted run
+     * @return row counts and sample rejects
+     */
+    @PostMapping("/import")
+    public BookImportSummary importBooks(@RequestParam String file,
+                                         @RequestParam(required = false) String format,
+                                         @RequestParam(defaultValue = "true") boolean resume) throws IOException {
+        return bookImporter.importFile(bookImporter.resolve(file), ImportFormat.of(format), resume);
+    }
+}
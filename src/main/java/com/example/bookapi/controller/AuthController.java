@@ -0,0 +1,34 @@
+package com.example.bookapi.controller;
+
+import com.example.bookapi.dto.TokenResponse;
+import com.example.bookapi.security.TokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for issuing bearer tokens.
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class AuthController {
+    private final TokenService tokenService;
+
+    /**
+     * Exchange HTTP Basic credentials for a short-lived bearer token.
+     * The password is checked once here (BCrypt); later requests only verify the token's HMAC.
+     * @param authentication the principal authenticated by HTTP Basic
+     * @return the token response
+     */
+    @PostMapping("/token")
+    public TokenResponse issueToken(Authentication authentication) {
+        return TokenResponse.builder()
+                .token(tokenService.issue(authentication))
+                .tokenType("Bearer")
+                .expiresIn(tokenService.getTtl().toSeconds())
+                .build();
+    }
+}
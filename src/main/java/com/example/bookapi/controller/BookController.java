@@ -1,19 +1,45 @@
 package com.example.bookapi.controller;
 
+import com.example.bookapi.changes.BookChangeLog;
+import com.example.bookapi.changes.BookChangeStream;
+import com.example.bookapi.dto.BookChangePageResponse;
+import com.example.bookapi.dto.BookCursor;
+import com.example.bookapi.dto.BookFilter;
+import com.example.bookapi.dto.BookPatchRequest;
 import com.example.bookapi.dto.BookRequest;
 import com.example.bookapi.dto.BookResponse;
 import com.example.bookapi.dto.BookPageResponse;
+import com.example.bookapi.encoding.ProtobufBookHttpMessageConverter;
+import com.example.bookapi.etag.CatalogGeneration;
+import com.example.bookapi.exception.BookVersionMismatchException;
+import com.example.bookapi.exception.InvalidRequestException;
+import com.example.bookapi.exception.PreconditionRequiredException;
+import com.example.bookapi.groupcommit.BookCreateQueue;
 import com.example.bookapi.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * REST controller for managing books.
@@ -23,73 +49,315 @@ import java.util.List;
 @RequestMapping("/books")
 @RequiredArgsConstructor
 public class BookController {
+    // Clients may keep responses but must revalidate them, instead of Spring Security's default no-store
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    // Offset pages may sort by any column of the book
+    private static final Set<String> SORT_KEYS = Set.of("id", "title", "author", "publishedYear", "version");
+
     private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final CatalogGeneration catalogGeneration;
+    private final BookChangeLog changeLog;
+    private final BookChangeStream changeStream;
+    private final BookCreateQueue createQueue;
 
     /**
      * Get all books (legacy endpoint for backward compatibility).
-     * @return list of all books
+     * Passing {@code after} switches to cursor pagination: an empty value starts
+     * from the first row, otherwise it is the {@code nextCursor} of the previous page.
+     * The {@code author}, {@code yearFrom}, {@code yearTo} and {@code titlePrefix}
+     * filters apply to both pagination modes. Pages hold at most 1000 books, and bad paging or sort
+     * parameters are answered with 400. Answers 304 while the catalog is unchanged.
+     * @return list of all books, a page of books, or a cursor page of books
      */
     @GetMapping
     public ResponseEntity<?> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
-        
-        // If no pagination parameters are provided, return all books (legacy behavior)
-        if (page == 0 && size == 10 && "id".equals(sortBy) && "asc".equals(sortDir)) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) String titlePrefix,
+            ServletWebRequest webRequest) {
+        if (catalogNotModified(webRequest)) {
+            return null;
+        }
+
+        BookFilter filter = BookFilter.builder()
+                .author(author)
+                .yearFrom(yearFrom)
+                .yearTo(yearTo)
+                .titlePrefix(titlePrefix)
+                .build();
+
+        // Cursor (keyset) pagination: no OFFSET and no count query
+        if (after != null) {
+            BookCursor cursor = after.isBlank() ? BookCursor.start(sortBy, sortDir) : BookCursor.decode(after);
+            return ResponseEntity.ok(bookService.findAllByCursor(filter, cursor, Paging.checkSize(size)));
+        }
+
+        // If no pagination or filter parameters are provided, return all books (legacy behavior)
+        if (filter.isEmpty() && page == 0 && size == 10 && "id".equals(sortBy) && "asc".equals(sortDir)) {
             List<BookResponse> books = bookService.findAll();
             return ResponseEntity.ok(books);
         }
-        
+
         // Otherwise, return paginated results
-        Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        BookPageResponse paginatedBooks = bookService.findAllPaginated(pageable);
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new InvalidRequestException("sortBy must be one of " + SORT_KEYS);
+        }
+        Pageable pageable = Paging.of(page, size, Sort.by(BookCursor.direction(sortDir), sortBy));
+        BookPageResponse paginatedBooks = filter.isEmpty()
+                ? bookService.findAllPaginated(pageable)
+                : bookService.findAllFiltered(filter, pageable);
         return ResponseEntity.ok(paginatedBooks);
     }
 
     /**
-     * Get a book by its ID.
+     * Search books by title and author, best matches first.
+     * @param q free text; the last term also matches as a prefix
+     * @param page the page number
+     * @param size the page size
+     * @return paginated search results, or 304 while the catalog is unchanged
+     */
+    @GetMapping("/search")
+    public ResponseEntity<BookPageResponse> searchBooks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            ServletWebRequest webRequest) {
+        if (catalogNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.search(q, Paging.of(page, size, Sort.unsorted())));
+    }
+
+    /**
+     * Export the whole catalog as newline-delimited JSON, one book per line.
+     * Rows are written as they are read, so memory use does not depend on the catalog size.
+     * Answers 304 while the catalog is unchanged.
+     * @return the streamed books
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooksAsNdjson(ServletWebRequest webRequest) {
+        if (catalogNotModified(webRequest)) {
+            return null;
+        }
+        StreamingResponseBody body = out -> writeBooks(out, false);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Export the whole catalog as a JSON array, streamed with chunked transfer encoding.
+     * @return the streamed books
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooksAsJsonArray(ServletWebRequest webRequest) {
+        if (catalogNotModified(webRequest)) {
+            return null;
+        }
+        StreamingResponseBody body = out -> writeBooks(out, true);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private void writeBooks(OutputStream out, boolean asArray) throws IOException {
+        // Let the servlet buffer decide when to send a chunk instead of flushing every row;
+        // lines are terminated explicitly, so no separator is needed between root values
+        ObjectWriter writer = objectMapper.writerFor(BookResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (asArray) {
+                generator.writeStartArray();
+            }
+            bookService.exportAll(book -> {
+                try {
+                    writer.writeValue(generator, book);
+                    if (!asArray) {
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (asArray) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    /**
+     * Get change log entries after a cursor, oldest first, so mirrors apply what changed instead of
+     * re-reading the catalog. Start from {@code since=0}, which replays the whole catalog, then pass
+     * each page's {@code nextSince}.
+     * @param since 0, or the {@code nextSince} of the previous page
+     * @param limit the page size, at most 1000
+     * @return the page, or 410 if the cursor belongs to a log that has started over since
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<BookChangePageResponse> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(changeLog.changesSince(since, limit));
+    }
+
+    /**
+     * Stream change log entries after a cursor as Server-Sent Events named {@code change}, first those
+     * already committed and then new ones as they commit. Event ids are sequence numbers, so a
+     * reconnecting client's {@code Last-Event-ID} takes precedence over {@code since}.
+     * @param since 0, or the sequence number of the last entry applied
+     * @param lastEventId the id of the last event received before a reconnect
+     * @return the event stream, or 410 if the cursor belongs to a log that has started over since
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(defaultValue = "0") long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeStream.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    /**
+     * Get the {@code .proto} schema of book pages and lists, for clients that request
+     * {@code application/x-protobuf}.
+     * @return the schema source
+     */
+    @GetMapping(value = "/schema", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String getProtobufSchema() {
+        return ProtobufBookHttpMessageConverter.SCHEMA;
+    }
+
+    /**
+     * Get a book by its ID. The ETag names the book's version and the representation, for use in If-Match,
+     * and a matching If-None-Match is answered with 304 before serialization. Cached books are checked
+     * without a query.
      * @param id the book ID
+     * @param accept the Accept header the body format is negotiated from
      * @return the book response
      */
     @GetMapping("/{id}")
-    public ResponseEntity<BookResponse> getBookById(@PathVariable Long id) {
-        return ResponseEntity.ok(bookService.findById(id));
+    public ResponseEntity<BookResponse> getBookById(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookResponse book = bookService.findById(id);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                .eTag(etag(book.getVersion(), accept)).body(book);
     }
 
     /**
-     * Create a new book.
+     * Create a new book. With group commit enabled, concurrent creates share a transaction.
      * @param request the book request DTO
-     * @return the created book response
+     * @return the created book response, or 503 if the group commit queue is full
      */
     @PostMapping
     public ResponseEntity<BookResponse> createBook(@Valid @RequestBody BookRequest request) {
-        BookResponse response = bookService.create(request);
+        BookResponse response = createQueue.create(request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     /**
-     * Update an existing book.
+     * Create many books in one request.
+     * Invalid items are reported by index (e.g. {@code [3].title}) and nothing is stored.
+     * @param requests the book request DTOs
+     * @return the created book responses, in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookResponse>> createBooks(@RequestBody List<BookRequest> requests) {
+        List<BookResponse> responses = bookService.createAll(requests);
+        return new ResponseEntity<>(responses, HttpStatus.CREATED);
+    }
+
+    /**
+     * Update an existing book. With If-Match, only the version named by its ETag is replaced.
      * @param id the book ID
      * @param request the book request DTO
-     * @return the updated book response
+     * @param ifMatch the ETag of the version being replaced, if any
+     * @param accept the Accept header the body format is negotiated from
+     * @return the updated book response, or 412 if the book has changed
      */
     @PutMapping("/{id}")
-    public ResponseEntity<BookResponse> updateBook(@PathVariable Long id, @Valid @RequestBody BookRequest request) {
-        BookResponse response = bookService.update(id, request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<BookResponse> updateBook(@PathVariable Long id, @Valid @RequestBody BookRequest request,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookResponse response = bookService.update(id, request, expectedVersion(id, ifMatch));
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(etag(response.getVersion(), accept)).body(response);
+    }
+
+    /**
+     * Change some fields of a book with one conditional UPDATE. Requires If-Match with the ETag of
+     * the version being changed, and answers with the ETag of the new version but no body, so the tag is the
+     * bare version.
+     * @param id the book ID
+     * @param request the fields to change
+     * @param ifMatch the ETag of the version being changed
+     * @return no content, 412 if the book has changed, or 428 without an If-Match naming a version
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchBook(@PathVariable Long id, @Valid @RequestBody BookPatchRequest request,
+                                          @RequestHeader(HttpHeaders.IF_MATCH) String ifMatch) {
+        Long version = expectedVersion(id, ifMatch);
+        if (version == null) {
+            throw new PreconditionRequiredException("If-Match must carry the ETag of the book being patched");
+        }
+        long patched = bookService.patch(id, request, version);
+        return ResponseEntity.noContent().eTag(String.valueOf(patched)).build();
     }
 
     /**
-     * Delete a book by its ID (admin only).
+     * Delete a book by its ID (admin only). With If-Match, only the version named by its ETag is deleted.
      * @param id the book ID
-     * @return no content
+     * @param ifMatch the ETag of the version being deleted, if any
+     * @return no content, or 412 if the book has changed
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
-        bookService.delete(id);
+    public ResponseEntity<Void> deleteBook(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        bookService.delete(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Check If-None-Match against the tag of the current catalog generation, before anything is read,
+     * so an unchanged catalog costs neither a query nor serialization. Sets the ETag either way.
+     * @return true if the response is a 304 and the handler should return null
+     */
+    private boolean catalogNotModified(ServletWebRequest webRequest) {
+        String etag = catalogGeneration.etag(webRequest.getHeader(HttpHeaders.ACCEPT));
+        if (etag == null) {
+            return false;
+        }
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+        return webRequest.checkNotModified(etag);
+    }
+
+    /**
+     * A book's ETag: its version, then a hash of the Accept header, since JSON, CBOR, Smile and protobuf
+     * bodies of one version are different representations and must not share a strong tag.
+     */
+    private static String etag(long version, String accept) {
+        return version + "-" + Integer.toHexString(Objects.hashCode(accept));
+    }
+
+    /**
+     * Read the expected version from an If-Match header: a single ETag as sent by this API, in any
+     * representation, or {@code *} for whatever version is current.
+     * @return the version, or null if any version will do
+     */
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String opaque = tag.substring(1, tag.length() - 1);
+            int representation = opaque.indexOf('-');
+            try {
+                return Long.parseLong(representation < 0 ? opaque : opaque.substring(0, representation));
+            } catch (NumberFormatException ignored) {
+                // Not one of our tags
+            }
+        }
+        // Weak, foreign or listed tags never match a version, so the precondition fails
+        throw new BookVersionMismatchException(id);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bookapi.controller;
+
+import com.example.bookapi.dto.OrderRequest;
+import com.example.bookapi.dto.OrderResponse;
+import com.example.bookapi.service.OrderService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for placing and cancelling orders.
+ */
+@RestController
+@RequestMapping("/orders")
+@RequiredArgsConstructor
+public class OrderController {
+    private final OrderService orderService;
+
+    /**
+     * Place a new order.
+     * @param request the order request DTO
+     * @return the created order response
+     */
+    @PostMapping
+    public ResponseEntity<OrderResponse> placeOrder(@Valid @RequestBody OrderRequest request) {
+        return new ResponseEntity<>(orderService.placeOrder(request), HttpStatus.CREATED);
+    }
+
+    /**
+     * Cancel an order by its ID (admin only).
+     * @param id the order ID
+     * @return no content
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelOrder(@PathVariable Long id) {
+        orderService.cancelOrder(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.bookapi.controller;
+
+import com.example.bookapi.exception.InvalidRequestException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Checks the paging parameters of list endpoints, so a client cannot ask for an unbounded page and a bad
+ * value is answered with 400 rather than failing deep inside Spring Data.
+ */
+final class Paging {
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private Paging() {
+    }
+
+    /**
+     * @return the size, if between 1 and {@value #MAX_PAGE_SIZE}
+     * @throws InvalidRequestException otherwise
+     */
+    static int checkSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    /**
+     * @return a page request for a non-negative page of at most {@value #MAX_PAGE_SIZE} items
+     * @throws InvalidRequestException otherwise
+     */
+    static PageRequest of(int page, int size, Sort sort) {
+        if (page < 0) {
+            throw new InvalidRequestException("page must not be negative");
+        }
+        return PageRequest.of(page, checkSize(size), sort);
+    }
+}
@@ -1,11 +1,19 @@
 package com.example.bookapi.controller;
 
-import com.example.bookapi.model.User;
+import com.example.bookapi.exception.InvalidRequestException;
 import com.example.bookapi.repository.UserRepository;
 import com.example.bookapi.dto.UserOrderTotal;
+import com.example.bookapi.dto.UserPageResponse;
+import com.example.bookapi.dto.UserSummary;
+import com.example.bookapi.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -15,37 +23,71 @@ import java.util.stream.Collectors;
 /**
  * REST controller for user-related custom queries.
  * Provides endpoints for advanced user/order queries.
+ * Users are returned as summaries, so each endpoint runs a fixed number of SQL statements.
  */
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserRepository userRepository;
+    private final OrderService orderService;
 
     /**
      * Get users with more than 3 orders.
-     * @return list of users
+     * @return list of user summaries
      */
     @GetMapping("/more-than-3-orders")
-    public List<User> getUsersWithMoreThan3Orders() {
+    public List<UserSummary> getUsersWithMoreThan3Orders() {
         return userRepository.findUsersWithMoreThan3Orders();
     }
 
     /**
      * Get users with no orders.
-     * @return list of users
+     * @return list of user summaries
      */
     @GetMapping("/no-orders")
-    public List<User> getUsersWithNoOrders() {
+    public List<UserSummary> getUsersWithNoOrders() {
         return userRepository.findUsersWithNoOrders();
     }
 
+    /**
+     * Get users whose order count is between min and max (inclusive), ordered by order count.
+     * @param min the minimum order count
+     * @param max the maximum order count (unbounded if omitted)
+     * @param page the page number
+     * @param size the page size
+     * @return a page of user summaries
+     */
+    @GetMapping("/by-order-count")
+    public UserPageResponse getUsersByOrderCount(
+            @RequestParam(defaultValue = "0") long min,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long max,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        if (min > max) {
+            throw new InvalidRequestException("min must not be greater than max");
+        }
+        PageRequest pageable = Paging.of(page, size, Sort.by("orderCount", "id"));
+        return UserPageResponse.fromPage(userRepository.findByOrderCountBetween(min, max, pageable));
+    }
+
     /**
      * Get total order amount per user.
+     * Served from the materialized per-user totals, so the cost depends on the number of users only.
      * @return list of username/totalAmount pairs
      */
     @GetMapping("/total-order-amount")
     public List<UserOrderTotal> getTotalOrderAmountPerUser() {
         return userRepository.findTotalOrderAmountPerUser();
     }
+
+    /**
+     * Recompute the materialized per-user order totals from scratch (admin only).
+     * @return no content
+     */
+    @PostMapping("/order-totals/rebuild")
+    public ResponseEntity<Void> rebuildOrderTotals() {
+        orderService.rebuildOrderTotals();
+        return ResponseEntity.noContent().build();
+    }
 } 
\ No newline at end of file
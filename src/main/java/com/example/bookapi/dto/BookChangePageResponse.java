@@ -0,0 +1,18 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for a page of the book change log. Pass {@code nextSince} as {@code since} to get the next page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookChangePageResponse {
+    private List<BookChangeResponse> changes;
+    private long nextSince;
+    private boolean hasMore;
+}
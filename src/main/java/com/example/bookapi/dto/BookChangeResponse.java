@@ -0,0 +1,38 @@
+package com.example.bookapi.dto;
+
+import com.example.bookapi.model.BookChange;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * DTO for one entry of the book change log. {@code CREATED} and {@code REPLACED} entries carry the full book;
+ * in {@code UPDATED} entries title, author and year are null when they did not change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookChangeResponse {
+    private long seq;
+    private BookChange.Type type;
+    private Long bookId;
+    private String title;
+    private String author;
+    private Integer publishedYear;
+    private Long version;
+    private Instant changedAt;
+
+    public static BookChangeResponse fromEntity(BookChange change) {
+        return BookChangeResponse.builder()
+                .seq(change.getSeq())
+                .type(change.getType())
+                .bookId(change.getBookId())
+                .title(change.getTitle())
+                .author(change.getAuthor())
+                .publishedYear(change.getPublishedYear())
+                .version(change.getVersion())
+                .changedAt(change.getChangedAt())
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bookapi.dto;
+
+import com.example.bookapi.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opaque keyset cursor for book listings.
+ * Encodes the sort key, direction and the sort value plus id of the last row returned,
+ * so the next page can seek past it instead of using an OFFSET.
+ */
+@Getter
+@AllArgsConstructor
+public class BookCursor {
+    /**
+     * Sort keys allowed in cursor mode. They must be non-null columns,
+     * otherwise rows with a null sort value could never be seeked past.
+     */
+    public static final Set<String> SORT_KEYS = Set.of("id", "title", "author");
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortBy;
+    private final Sort.Direction direction;
+    private final Long lastId;
+    private final Object lastValue;
+
+    /**
+     * Cursor pointing before the first row of the given ordering.
+     * @param sortBy the sort key
+     * @param sortDir the sort direction ("asc" or "desc")
+     * @return the initial cursor
+     */
+    public static BookCursor start(String sortBy, String sortDir) {
+        return new BookCursor(checkSortKey(sortBy), direction(sortDir), null, null);
+    }
+
+    /**
+     * Cursor pointing right after the given book, keeping this cursor's ordering.
+     * @param book the last book of the current page
+     * @return the cursor for the next page
+     */
+    public BookCursor after(BookResponse book) {
+        Object value = switch (sortBy) {
+            case "title" -> book.getTitle();
+            case "author" -> book.getAuthor();
+            default -> book.getId();
+        };
+        return new BookCursor(sortBy, direction, book.getId(), value);
+    }
+
+    /**
+     * Sort used for the seek: the sort key followed by id as a unique tie-breaker.
+     * @return the sort
+     */
+    public Sort toSort() {
+        Sort sort = Sort.by(direction, sortBy);
+        return "id".equals(sortBy) ? sort : sort.and(Sort.by(direction, "id"));
+    }
+
+    /**
+     * Scroll position to continue from.
+     * @return the keyset scroll position
+     */
+    public ScrollPosition toScrollPosition() {
+        if (lastId == null) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(sortBy, lastValue);
+        keys.put("id", lastId);
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Encode this cursor as an opaque, URL-safe string.
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = direction.name() + SEPARATOR + sortBy + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encode()}.
+     * @param encoded the encoded cursor
+     * @return the cursor
+     * @throws InvalidRequestException if the cursor is malformed
+     */
+    public static BookCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            // The value goes last so it may itself contain the separator
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            String sortBy = checkSortKey(parts[1]);
+            Long lastId = Long.valueOf(parts[2]);
+            Object lastValue = "id".equals(sortBy) ? Long.valueOf(parts[3]) : parts[3];
+            return new BookCursor(sortBy, Sort.Direction.valueOf(parts[0]), lastId, lastValue);
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Invalid cursor: " + encoded);
+        }
+    }
+
+    /**
+     * Parse a sort direction sent by a client.
+     * @param sortDir "asc" or "desc", ignoring case
+     * @return the direction
+     * @throws InvalidRequestException if it is neither
+     */
+    public static Sort.Direction direction(String sortDir) {
+        return Sort.Direction.fromOptionalString(sortDir)
+                .orElseThrow(() -> new InvalidRequestException("sortDir must be asc or desc"));
+    }
+
+    private static String checkSortKey(String sortBy) {
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new InvalidRequestException("Cursor pagination supports sorting by " + SORT_KEYS + " only");
+        }
+        return sortBy;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for cursor (keyset) paginated book responses.
+ * Unlike {@link BookPageResponse} it carries no totals, so no count query is needed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookCursorPageResponse {
+    private List<BookResponse> content;
+    private int pageSize;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+
+/**
+ * Server-side filter criteria for book listings. Null fields are not applied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookFilter {
+    private String author;
+    private Integer yearFrom;
+    private Integer yearTo;
+    private String titlePrefix;
+
+    /**
+     * @return true if no criterion is set
+     */
+    public boolean isEmpty() {
+        return author == null && yearFrom == null && yearTo == null
+                && (titlePrefix == null || titlePrefix.isEmpty());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO summarising a bulk book import.
+ * Counts include rows handled by earlier, interrupted runs when the import was resumed;
+ * the reject samples only cover this run.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookImportSummary {
+    private String file;
+    private String format;
+    private boolean resumed;
+    private long startOffset;
+    private long endOffset;
+    private long lines;
+    private long imported;
+    private long rejected;
+    private List<Reject> rejects;
+    private long millis;
+
+    /**
+     * A rejected row and why it was rejected.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reject {
+        private long line;
+        private String error;
+    }
+}
@@ -19,6 +19,7 @@ public class BookMapper {
                 .title(book.getTitle())
                 .author(book.getAuthor())
                 .publishedYear(book.getPublishedYear())
+                .version(book.getVersion())
                 .build();
     }
 
@@ -29,4 +30,14 @@ public class BookMapper {
             book.setPublishedYear(request.getPublishedYear());
         }
     }
-} 
\ No newline at end of file
+
+    public static BookResponse applyPatch(BookResponse book, BookPatchRequest patch, long version) {
+        return BookResponse.builder()
+                .id(book.getId())
+                .title(patch.getTitle() != null ? patch.getTitle() : book.getTitle())
+                .author(patch.getAuthor() != null ? patch.getAuthor() : book.getAuthor())
+                .publishedYear(patch.getPublishedYear() != null ? patch.getPublishedYear() : book.getPublishedYear())
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bookapi.dto;
+
+import com.example.bookapi.model.CurrentYearOrEarlier;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+/**
+ * Partial update of a book: fields left null keep their current value.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookPatchRequest {
+    @Pattern(regexp = ".*\\S.*", message = "Title must not be blank")
+    private String title;
+
+    @Pattern(regexp = ".*\\S.*", message = "Author must not be blank")
+    private String author;
+
+    @Min(value = 1500, message = "Published year must be no earlier than 1500")
+    @CurrentYearOrEarlier
+    private Integer publishedYear;
+
+    public boolean isEmpty() {
+        return title == null && author == null && publishedYear == null;
+    }
+}
@@ -11,4 +11,6 @@ public class BookResponse {
     private String title;
     private String author;
     private Integer publishedYear;
+    // Sent as the ETag of single-book responses; If-Match on PUT, PATCH and DELETE must carry it
+    private Long version;
 } 
\ No newline at end of file
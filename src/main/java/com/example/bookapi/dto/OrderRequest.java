@@ -0,0 +1,17 @@
+package com.example.bookapi.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderRequest {
+    @NotNull(message = "User id must not be null")
+    private Long userId;
+
+    @NotNull(message = "Amount must not be null")
+    @Positive(message = "Amount must be positive")
+    private Double amount;
+}
@@ -0,0 +1,13 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderResponse {
+    private Long id;
+    private Long userId;
+    private Double amount;
+}
@@ -0,0 +1,19 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+
+/**
+ * DTO describing a database snapshot that was written or restored.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SnapshotResponse {
+    private String path;
+    private long books;
+    private long users;
+    private long orders;
+    private long bytes;
+    private long millis;
+}
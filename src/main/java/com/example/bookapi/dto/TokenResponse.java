@@ -0,0 +1,16 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+
+/**
+ * DTO for an issued bearer token.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenResponse {
+    private String token;
+    private String tokenType;
+    private long expiresIn;
+}
@@ -0,0 +1,41 @@
+package com.example.bookapi.dto;
+
+import lombok.*;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * DTO for paginated user responses.
+ * Includes content and pagination metadata.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserPageResponse {
+    private List<UserSummary> content;
+    private int pageNumber;
+    private int pageSize;
+    private long totalElements;
+    private int totalPages;
+    private boolean hasNext;
+    private boolean hasPrevious;
+
+    /**
+     * Create UserPageResponse from Spring Data Page.
+     * @param page the Spring Data Page
+     * @return UserPageResponse
+     */
+    public static UserPageResponse fromPage(Page<UserSummary> page) {
+        return UserPageResponse.builder()
+                .content(page.getContent())
+                .pageNumber(page.getNumber())
+                .pageSize(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .hasNext(page.hasNext())
+                .hasPrevious(page.hasPrevious())
+                .build();
+    }
+}
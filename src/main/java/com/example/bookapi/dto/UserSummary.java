@@ -0,0 +1,21 @@
+package com.example.bookapi.dto;
+
+import com.example.bookapi.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a user with its order statistics but without the orders themselves.
+ * Built by JPQL constructor expressions, so no entity or lazy collection is loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String username;
+    private User.Role role;
+    private Long orderCount;
+    private Double totalOrderAmount;
+}
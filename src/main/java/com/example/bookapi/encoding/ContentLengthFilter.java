@@ -0,0 +1,41 @@
+package com.example.bookapi.encoding;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Buffers book read responses so they go out with a {@code Content-Length}. Tomcat only applies
+ * {@code server.compression.min-response-size} when the length is known, and the message converters
+ * stream without one, so small pages would otherwise be gzipped too. Exports and the change stream
+ * are left streaming.
+ */
+@Component
+public class ContentLengthFilter extends OncePerRequestFilter {
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !(path.equals("/books") || path.startsWith("/books/"))
+                || path.startsWith("/books/export")
+                || path.startsWith("/books/changes/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
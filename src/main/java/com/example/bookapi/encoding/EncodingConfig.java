@@ -0,0 +1,39 @@
+package com.example.bookapi.encoding;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary response encodings, chosen by the {@code Accept} header: CBOR ({@code application/cbor}),
+ * Smile ({@code application/x-jackson-smile}) and, for book pages and lists, schema-based protobuf
+ * ({@code application/x-protobuf}). JSON stays the default for clients that accept anything.
+ */
+@Configuration
+public class EncodingConfig implements WebMvcConfigurer {
+    // These replace Spring MVC's defaults in place, after JSON, and share the application's Jackson settings
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Not a bean: Boot puts converter beans ahead of JSON, which would make protobuf the default for */*
+        converters.add(new ProtobufBookHttpMessageConverter());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.bookapi.encoding;
+
+import com.example.bookapi.dto.BookPageResponse;
+import com.example.bookapi.dto.BookResponse;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes {@link BookPageResponse} and lists of {@link BookResponse} as Protocol Buffers messages,
+ * using the schema in {@code proto/books.proto}, published at {@code GET /books/schema}.
+ * A list is written as a {@code BookList} message, since protobuf has no top-level repeated values.
+ * Write-only: request bodies stay JSON.
+ */
+public class ProtobufBookHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    /**
+     * The {@code .proto} source of the book messages.
+     */
+    public static final String SCHEMA = loadSchema();
+
+    private final ObjectWriter pageWriter;
+    private final ObjectWriter listWriter;
+
+    record BookList(List<BookResponse> content) {
+    }
+
+    public ProtobufBookHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+        try {
+            NativeProtobufSchema schema = ProtobufSchemaLoader.std.parseNative(SCHEMA);
+            ProtobufMapper mapper = new ProtobufMapper();
+            pageWriter = mapper.writer(schema.forType("BookPageResponse"));
+            listWriter = mapper.writer(schema.forType("BookList"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String loadSchema() {
+        try (InputStream in = new ClassPathResource("proto/books.proto").getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookPageResponse.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!super.canWrite(type, clazz, mediaType)) {
+            return false;
+        }
+        // A declared element type can be checked now; for ResponseEntity<?> it is checked while writing
+        Class<?> element = type == null ? null : ResolvableType.forType(type).asCollection().resolveGeneric();
+        return element == null || element == BookResponse.class;
+    }
+
+    @Override
+    protected void writeInternal(Object body, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof BookPageResponse page) {
+            pageWriter.writeValue(outputMessage.getBody(), page);
+            return;
+        }
+        List<?> list = (List<?>) body;
+        List<BookResponse> books = list.stream()
+                .map(item -> {
+                    if (!(item instanceof BookResponse book)) {
+                        throw new HttpMessageNotWritableException("Only book lists can be written as protobuf");
+                    }
+                    return book;
+                })
+                .toList();
+        listWriter.writeValue(outputMessage.getBody(), new BookList(books));
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bookapi.etag;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts changes to the book catalog, so responses built from many books (lists, pages, searches and
+ * exports) can be tagged without reading them. The book service counts each create, update and delete
+ * once it has committed and the search index shows it, and requests take their tag before reading,
+ * so a tag never stands for data older than the response it is sent with.
+ * <p>
+ * Tags are weak: Tomcat does not gzip responses with strong ETags, since the compressed bytes are a
+ * different representation, and {@code If-None-Match} compares weakly anyway. They start from a random
+ * epoch, so tags from before a restart or from another instance never match. With read replicas a list
+ * may come from a replica that has not caught up with the latest counted change, so no tags are issued.
+ */
+@Component
+public class CatalogGeneration {
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong generation = new AtomicLong();
+    private final boolean enabled;
+
+    public CatalogGeneration(@Value("${book-api.datasource.replica.urls:}") String replicaUrls) {
+        this.enabled = replicaUrls.isBlank();
+    }
+
+    /**
+     * Count a committed change to the catalog.
+     */
+    public void changed() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * @param accept the request's {@code Accept} header, since the body format is negotiated from it
+     * @return a weak ETag for a catalog-wide response to the request, or null when tags are not issued
+     */
+    public String etag(String accept) {
+        if (!enabled) {
+            return null;
+        }
+        return "W/\"" + epoch + "-" + generation.get() + "-" + Integer.toHexString(Objects.hashCode(accept)) + "\"";
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.bookapi.exception;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Thrown when one or more items of a batch request fail validation.
+ * Errors are keyed like Spring's indexed field names, e.g. {@code [3].title}.
+ */
+@Getter
+public class BookBatchValidationException extends RuntimeException {
+    private final Map<String, String> errors;
+
+    public BookBatchValidationException(Map<String, String> errors) {
+        super("Validation failed for " + errors.size() + " field(s) in batch");
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bookapi.exception;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Thrown when a book id does not exist. Misses are frequent (crawlers, stale links) and always
+ * handled by {@link GlobalExceptionHandler}, so no stack trace is captured and the message is
+ * only built if someone reads it.
+ */
+public class BookNotFoundException extends NoSuchElementException {
+    private final long id;
+
+    public BookNotFoundException(long id) {
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Book not found with id: " + id;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bookapi.exception;
+
+/**
+ * Thrown when a conditional update or delete names a version of the book that is no longer current.
+ */
+public class BookVersionMismatchException extends RuntimeException {
+    private final long id;
+
+    public BookVersionMismatchException(long id) {
+        super("Book " + id + " has been modified; fetch it again and retry");
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bookapi.exception;
+
+/**
+ * Thrown when a change feed cursor does not belong to the current change log, because the log was
+ * started over by a restart or a snapshot restore. The mirror must resync from {@code since=0}.
+ */
+public class ChangeCursorExpiredException extends RuntimeException {
+    public ChangeCursorExpiredException(long since) {
+        super("Cursor " + since + " is not in the change log; discard the mirror and resync from since=0");
+    }
+}
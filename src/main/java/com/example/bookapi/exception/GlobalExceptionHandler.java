@@ -1,8 +1,12 @@
 package com.example.bookapi.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
@@ -13,14 +17,41 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    // Shared by every missing book: there is no timestamp, path or id to fill in, so nothing is built per miss
+    private static final ResponseEntity<Object> BOOK_NOT_FOUND = new ResponseEntity<>(Map.of(
+            "status", HttpStatus.NOT_FOUND.value(),
+            "error", "Not Found",
+            "message", "Book not found"), HttpStatus.NOT_FOUND);
+
+    private final MeterRegistry meterRegistry;
+    private final Counter bookNotFound;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        // Tagged like other NoSuchElementExceptions, so existing dashboards keep counting book misses
+        this.bookNotFound = errorCounter("NoSuchElementException", HttpStatus.NOT_FOUND);
+    }
+
+    // Handle unknown book ids, which crawlers and stale links send in bulk; logged at debug only
+    @ExceptionHandler(BookNotFoundException.class)
+    public ResponseEntity<Object> handleBookNotFound(BookNotFoundException ex) {
+        log.atDebug().addKeyValue("bookId", ex.getId()).log("Book not found");
+        bookNotFound.increment();
+        return BOOK_NOT_FOUND;
+    }
+
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<Object> handleNotFound(NoSuchElementException ex, WebRequest request) {
         log.warn("Not found: {}", ex.getMessage());
+        countError(ex, HttpStatus.NOT_FOUND);
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("status", HttpStatus.NOT_FOUND.value());
@@ -33,6 +64,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Object> handleDataIntegrity(DataIntegrityViolationException ex, WebRequest request) {
         log.warn("Data integrity violation: {}", ex.getMessage());
+        countError(ex, HttpStatus.CONFLICT);
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("status", HttpStatus.CONFLICT.value());
@@ -42,10 +74,125 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.CONFLICT);
     }
 
+    // Handle If-Match naming a version that is no longer current; routine under contention, so logged at debug
+    @ExceptionHandler(BookVersionMismatchException.class)
+    public ResponseEntity<Object> handleVersionMismatch(BookVersionMismatchException ex, WebRequest request) {
+        log.atDebug().addKeyValue("bookId", ex.getId()).log("Book version mismatch");
+        countError(ex, HttpStatus.PRECONDITION_FAILED);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.PRECONDITION_FAILED.value());
+        body.put("error", "Precondition Failed");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return new ResponseEntity<>(body, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Handle an unconditional update that lost a race with another writer between its read and its write
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLock(OptimisticLockingFailureException ex, WebRequest request) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+        countError(ex, HttpStatus.CONFLICT);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", "The resource was modified concurrently; retry the request");
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    // Handle missing headers; a missing If-Match on a write that requires it is 428 Precondition Required
+    @ExceptionHandler(MissingRequestHeaderException.class)
+    public ResponseEntity<Object> handleMissingHeader(MissingRequestHeaderException ex, WebRequest request) {
+        HttpStatus status = HttpHeaders.IF_MATCH.equalsIgnoreCase(ex.getHeaderName())
+                ? HttpStatus.PRECONDITION_REQUIRED : HttpStatus.BAD_REQUEST;
+        log.warn("Missing header: {}", ex.getHeaderName());
+        return headerError(ex, status, "Missing required header " + ex.getHeaderName(), request);
+    }
+
+    // Handle an If-Match that names no version where one is required, such as *; answered like a missing one
+    @ExceptionHandler(PreconditionRequiredException.class)
+    public ResponseEntity<Object> handlePreconditionRequired(PreconditionRequiredException ex, WebRequest request) {
+        log.warn("Precondition required: {}", ex.getMessage());
+        return headerError(ex, HttpStatus.PRECONDITION_REQUIRED, ex.getMessage(), request);
+    }
+
+    private ResponseEntity<Object> headerError(Exception ex, HttpStatus status, String message, WebRequest request) {
+        countError(ex, status);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return new ResponseEntity<>(body, status);
+    }
+
+    // Handle a change feed cursor from a log that has started over; the mirror has to resync from scratch.
+    // The content type is set because event stream clients accept nothing else, which would turn this into a 500
+    @ExceptionHandler(ChangeCursorExpiredException.class)
+    public ResponseEntity<Object> handleCursorExpired(ChangeCursorExpiredException ex, WebRequest request) {
+        log.warn("Change cursor expired: {}", ex.getMessage());
+        countError(ex, HttpStatus.GONE);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.GONE.value());
+        body.put("error", "Gone");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return ResponseEntity.status(HttpStatus.GONE).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Handle a full write queue: shed the request with a hint when to retry instead of queueing it
+    @ExceptionHandler(WriteQueueFullException.class)
+    public ResponseEntity<Object> handleWriteQueueFull(WriteQueueFullException ex, WebRequest request) {
+        log.warn("Write rejected: {}", ex.getMessage());
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(body);
+    }
+
+    // Handle a second import of a file that is still being imported
+    @ExceptionHandler(ImportInProgressException.class)
+    public ResponseEntity<Object> handleImportInProgress(ImportInProgressException ex, WebRequest request) {
+        log.warn("Import conflict: {}", ex.getMessage());
+        countError(ex, HttpStatus.CONFLICT);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    // Handle client input the API cannot act on, such as an unknown sort key, an invalid cursor or an oversized page
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Object> handleBadRequest(InvalidRequestException ex, WebRequest request) {
+        log.warn("Bad request: {}", ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", "Bad Request");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
     // Handle validation errors and return a structured error response
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleValidation(MethodArgumentNotValidException ex, WebRequest request) {
         log.warn("Validation error: {}", ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("status", HttpStatus.BAD_REQUEST.value());
@@ -60,10 +207,35 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    // Handle per-item validation errors of batch requests; nothing from the batch was stored
+    @ExceptionHandler(BookBatchValidationException.class)
+    public ResponseEntity<Object> handleBatchValidation(BookBatchValidationException ex, WebRequest request) {
+        log.warn("Batch validation error: {}", ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", "Validation Error");
+        body.put("message", "Validation failed");
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+        body.put("errors", ex.getErrors());
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
+    // Handle an Accept header no representation of the endpoint satisfies, such as protobuf for the user
+    // reports. No body: there is no format left that the client accepts
+    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    public ResponseEntity<Object> handleNotAcceptable(HttpMediaTypeNotAcceptableException ex) {
+        log.atDebug().addKeyValue("supported", ex.getSupportedMediaTypes()).log("Not acceptable");
+        countError(ex, HttpStatus.NOT_ACCEPTABLE);
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+    }
+
     // Catch-all handler for any other exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGeneric(Exception ex, WebRequest request) {
         log.error("Unhandled exception: {}", ex.getMessage(), ex);
+        countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -72,4 +244,13 @@ public class GlobalExceptionHandler {
         body.put("path", request.getDescription(false).replace("uri=", ""));
         return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
     }
-} 
\ No newline at end of file
+
+    // Counted here because handled exceptions do not show up in the http.server.requests exception tag
+    private void countError(Exception ex, HttpStatus status) {
+        errorCounter(ex.getClass().getSimpleName(), status).increment();
+    }
+
+    private Counter errorCounter(String exception, HttpStatus status) {
+        return meterRegistry.counter("api.errors", "exception", exception, "status", String.valueOf(status.value()));
+    }
+}
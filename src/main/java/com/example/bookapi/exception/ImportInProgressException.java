@@ -0,0 +1,10 @@
+package com.example.bookapi.exception;
+
+/**
+ * Thrown when an import is requested for a file that is already being imported.
+ */
+public class ImportInProgressException extends RuntimeException {
+    public ImportInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bookapi.exception;
+
+/**
+ * Thrown when a client sends input the API cannot act on, such as a malformed cursor, an unknown sort key or
+ * an out-of-range page size. Answered with 400; other {@link IllegalArgumentException}s are programming errors.
+ */
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bookapi.exception;
+
+/**
+ * Thrown when a write that must be conditional carries no usable precondition, such as {@code If-Match: *}
+ * on a patch. Answered with 428, like a missing If-Match header.
+ */
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bookapi.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a write was not queued, or not taken from the queue, in time. The write has not happened, so the
+ * client should retry later.
+ */
+public class WriteQueueFullException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public WriteQueueFullException(Duration retryAfter) {
+        super("Too many writes in progress; retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
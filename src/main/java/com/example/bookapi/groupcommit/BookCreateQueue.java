@@ -0,0 +1,224 @@
+package com.example.bookapi.groupcommit;
+
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.exception.WriteQueueFullException;
+import com.example.bookapi.service.BookService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group commit for single-book creates. Callers put their request on a bounded queue and wait, while one
+ * writer thread takes up to {@code batch-size} requests at a time and creates them with
+ * {@link BookService#createAll} in one transaction. Under concurrent load many requests then share one
+ * commit, one connection checkout and one JDBC batch.
+ * <p>
+ * After the first request of a batch arrives, the writer waits up to {@code max-linger} for the batch to
+ * fill. Requests that arrive while a batch is committing are queued for the next one, so batches also form
+ * without lingering. Callers keep synchronous semantics: each gets its own created book, or the exception its
+ * own create would have thrown. If a batch fails, its requests are retried one transaction each, so one bad
+ * request does not fail the rest. A caller that finds the queue full for {@code enqueue-timeout}, or whose
+ * request the writer has not taken within {@code result-timeout}, gets {@link WriteQueueFullException} instead
+ * of waiting longer. A request the writer has taken is waited for until its commit ends, so that exception
+ * always means the book was not created and a retry cannot create it twice. The writer survives any failure of
+ * a batch, so one bad batch cannot stall later creates.
+ * <p>
+ * Disabled by default, in which case {@link #create} calls {@link BookService#create} directly.
+ */
+@Slf4j
+@Component
+public class BookCreateQueue implements AutoCloseable {
+    private final BookService bookService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxLingerNanos;
+    private final Duration enqueueTimeout;
+    private final Duration resultTimeout;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private record Pending(BookRequest request, CompletableFuture<BookResponse> result, AtomicBoolean claimed) {
+        Pending(BookRequest request) {
+            this(request, new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        // Claimed once: by the writer to write the request, or by its caller to give up on it
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    public BookCreateQueue(BookService bookService,
+                           @Value("${book-api.group-commit.enabled:false}") boolean enabled,
+                           @Value("${book-api.group-commit.batch-size:100}") int batchSize,
+                           @Value("${book-api.group-commit.max-linger:2ms}") Duration maxLinger,
+                           @Value("${book-api.group-commit.queue-capacity:10000}") int queueCapacity,
+                           @Value("${book-api.group-commit.enqueue-timeout:1s}") Duration enqueueTimeout,
+                           @Value("${book-api.group-commit.result-timeout:30s}") Duration resultTimeout) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("book-api.group-commit.batch-size must be at least 1");
+        }
+        this.bookService = bookService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.enqueueTimeout = enqueueTimeout;
+        this.resultTimeout = resultTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::drain, "book-create-writer");
+        writer.setDaemon(true);
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    /**
+     * Create a book, sharing the commit with concurrent creates when group commit is enabled.
+     * Blocks until the book's transaction has committed.
+     * @param request the book request DTO
+     * @return the created book
+     * @throws WriteQueueFullException if the queue stayed full for the enqueue timeout, or the writer did not
+     * take the request within the result timeout; the book is not created in either case
+     */
+    public BookResponse create(BookRequest request) {
+        if (!enabled) {
+            return bookService.create(request);
+        }
+        Pending pending = new Pending(request);
+        try {
+            if (!running) {
+                throw new IllegalStateException("Book creation queue is shut down");
+            }
+            if (!queue.offer(pending, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new WriteQueueFullException(enqueueTimeout);
+            }
+            return await(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the book to be created", e);
+        } catch (ExecutionException e) {
+            // Rethrown as the direct call would have thrown it
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private BookResponse await(Pending pending) throws InterruptedException, ExecutionException {
+        try {
+            return pending.result().get(resultTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (pending.claim()) {
+                // The writer will skip it, so it is never created
+                throw new WriteQueueFullException(resultTimeout);
+            }
+            // Already in a batch that may commit; answering 503 now would invite a duplicate on retry
+            return pending.result().get();
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || wait <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // Callers that timed out have already been answered
+                batch.removeIf(pending -> !pending.claim());
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                // Only this batch fails; the writer carries on with the next one
+                log.atError().setCause(e).addKeyValue("size", batch.size()).log("Group commit writer failed");
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.forEach(pending -> pending.result().completeExceptionally(
+                        new IllegalStateException("Book creation was interrupted by shutdown")));
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<BookResponse> created;
+        try {
+            created = bookService.createAll(batch.stream().map(Pending::request).toList());
+        } catch (RuntimeException e) {
+            // Includes batches of one, so every caller gets exactly what a direct create throws
+            log.atWarn().addKeyValue("size", batch.size()).addKeyValue("error", e.toString())
+                    .log("Group commit failed; creating the batch one book at a time");
+            for (Pending pending : batch) {
+                try {
+                    pending.result().complete(bookService.create(pending.request()));
+                } catch (RuntimeException single) {
+                    pending.result().completeExceptionally(single);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(created.get(i));
+        }
+    }
+
+    /**
+     * @return whether creates are grouped
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return number of requests waiting for the writer
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stop the writer. Requests still queued fail rather than wait forever.
+     */
+    @Override
+    @PreDestroy
+    public void close() {
+        running = false;
+        writer.interrupt();
+        for (Pending pending; (pending = queue.poll()) != null; ) {
+            pending.result().completeExceptionally(new IllegalStateException("Book creation queue is shut down"));
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.bookapi.importer;
+
+import com.example.bookapi.dto.BookImportSummary;
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.exception.ImportInProgressException;
+import com.example.bookapi.exception.InvalidRequestException;
+import com.example.bookapi.service.BookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Streams CSV or NDJSON book files into the catalog.
+ * <p>
+ * Lines are parsed one at a time and validated with the same rules as {@link BookRequest};
+ * invalid rows are counted and skipped. Valid rows are written through
+ * {@link BookService#createAll} in batches, one transaction each. Parsing and writing run on the
+ * same thread, so the reader never gets more than one batch ahead of the database, and memory
+ * use does not depend on the size of the file.
+ * <p>
+ * After each committed batch the byte offset reached is saved to {@code <file>.checkpoint}.
+ * An interrupted import resumes from there, and the checkpoint is removed once the file is done.
+ * A crash between a commit and its checkpoint write re-imports that one batch.
+ */
+@Slf4j
+@Component
+public class BookImporter {
+    private static final int MAX_LINE_BYTES = 1 << 20;
+    private static final int MAX_REJECT_SAMPLES = 100;
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+
+    private final BookService bookService;
+    private final Validator validator;
+    private final ObjectReader bookReader;
+    private final Path importDirectory;
+    private final int batchSize;
+    private final Set<Path> running = ConcurrentHashMap.newKeySet();
+
+    public BookImporter(BookService bookService, Validator validator, ObjectMapper objectMapper,
+                        @Value("${book-api.import.directory:./data/import}") Path importDirectory,
+                        @Value("${book-api.import.batch-size:1000}") int batchSize) {
+        this.bookService = bookService;
+        this.validator = validator;
+        this.bookReader = objectMapper.readerFor(BookRequest.class);
+        this.importDirectory = importDirectory.toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+    }
+
+    /** Position reached by an earlier run, saved after each committed batch. */
+    record Checkpoint(long offset, long lines, long imported, long rejected) {
+        static final Checkpoint START = new Checkpoint(0, 0, 0, 0);
+
+        static Checkpoint read(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return START;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+            return new Checkpoint(
+                    Long.parseLong(properties.getProperty("offset")),
+                    Long.parseLong(properties.getProperty("lines")),
+                    Long.parseLong(properties.getProperty("imported")),
+                    Long.parseLong(properties.getProperty("rejected")));
+        }
+
+        void write(Path file) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("offset", Long.toString(offset));
+            properties.setProperty("lines", Long.toString(lines));
+            properties.setProperty("imported", Long.toString(imported));
+            properties.setProperty("rejected", Long.toString(rejected));
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Resolve a file name against the import directory, which is the only place the admin endpoint reads from.
+     * @param name a path relative to the import directory
+     * @return the absolute path
+     * @throws InvalidRequestException if the path leaves the import directory
+     * @throws NoSuchElementException if there is no such file
+     */
+    public Path resolve(String name) {
+        Path file = importDirectory.resolve(name).normalize();
+        if (!file.startsWith(importDirectory)) {
+            throw new InvalidRequestException("Import files must be inside " + importDirectory);
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchElementException("Import file not found: " + name);
+        }
+        return file;
+    }
+
+    /**
+     * @param file the file being imported
+     * @return where its checkpoint is kept
+     */
+    public static Path checkpointPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Import a file.
+     * @param file the file
+     * @param format the format, or null to pick it from the file extension
+     * @param resume whether to continue from a checkpoint left by an interrupted run
+     * @return row counts and sample rejects
+     * @throws ImportInProgressException if the file is already being imported
+     */
+    public BookImportSummary importFile(Path file, ImportFormat format, boolean resume) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        if (!running.add(key)) {
+            throw new ImportInProgressException("An import of " + file.getFileName() + " is already running");
+        }
+        try {
+            return doImport(key, format != null ? format : ImportFormat.fromFileName(key), resume);
+        } finally {
+            running.remove(key);
+        }
+    }
+
+    private BookImportSummary doImport(Path file, ImportFormat format, boolean resume) throws IOException {
+        long startNanos = System.nanoTime();
+        Path checkpointFile = checkpointPath(file);
+        Checkpoint checkpoint = resume ? Checkpoint.read(checkpointFile) : Checkpoint.START;
+        if (checkpoint.offset() > Files.size(file)) {
+            throw new InvalidRequestException("Checkpoint offset " + checkpoint.offset() + " is past the end of "
+                    + file.getFileName() + "; the file has changed, import it with resume=false");
+        }
+        if (checkpoint != Checkpoint.START) {
+            log.atInfo().addKeyValue("file", file).addKeyValue("offset", checkpoint.offset())
+                    .log("Resuming import from checkpoint");
+        }
+
+        List<BookImportSummary.Reject> rejects = new ArrayList<>();
+        long lines = checkpoint.lines();
+        long imported = checkpoint.imported();
+        long rejected = checkpoint.rejected();
+        try (InputStream in = Files.newInputStream(file);
+             OffsetLineReader reader = new OffsetLineReader(in, MAX_LINE_BYTES)) {
+            Map<String, Integer> columns = null;
+            if (format == ImportFormat.CSV) {
+                String header = reader.readLine();
+                if (header == null) {
+                    throw new InvalidRequestException("CSV file has no header row: " + file.getFileName());
+                }
+                columns = csvColumns(header);
+                if (checkpoint == Checkpoint.START) {
+                    lines = 1;
+                }
+            }
+            reader.skipTo(Math.max(checkpoint.offset(), reader.offset()));
+
+            List<BookRequest> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                if (lines == 1 && line.startsWith(BYTE_ORDER_MARK)) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                String error;
+                try {
+                    BookRequest request = format == ImportFormat.CSV ? fromCsv(line, columns) : bookReader.readValue(line);
+                    error = validate(request);
+                    if (error == null) {
+                        batch.add(request);
+                    }
+                } catch (IllegalArgumentException | JsonProcessingException e) {
+                    error = e instanceof JsonProcessingException json ? "Malformed JSON: " + json.getOriginalMessage() : e.getMessage();
+                }
+                if (error != null) {
+                    rejected++;
+                    if (rejects.size() < MAX_REJECT_SAMPLES) {
+                        rejects.add(new BookImportSummary.Reject(lines, error));
+                    }
+                }
+                if (batch.size() == batchSize) {
+                    imported += write(batch);
+                    new Checkpoint(reader.offset(), lines, imported, rejected).write(checkpointFile);
+                    log.atDebug().addKeyValue("file", file).addKeyValue("offset", reader.offset())
+                            .addKeyValue("imported", imported).log("Import checkpoint saved");
+                }
+            }
+            imported += write(batch);
+            Files.deleteIfExists(checkpointFile);
+
+            BookImportSummary summary = BookImportSummary.builder()
+                    .file(file.toString())
+                    .format(format.name())
+                    .resumed(checkpoint != Checkpoint.START)
+                    .startOffset(checkpoint.offset())
+                    .endOffset(reader.offset())
+                    .lines(lines)
+                    .imported(imported)
+                    .rejected(rejected)
+                    .rejects(rejects)
+                    .millis((System.nanoTime() - startNanos) / 1_000_000)
+                    .build();
+            log.atInfo().addKeyValue("file", file).addKeyValue("imported", imported).addKeyValue("rejected", rejected)
+                    .addKeyValue("millis", summary.getMillis()).log("Import finished");
+            return summary;
+        }
+    }
+
+    private int write(List<BookRequest> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int written = bookService.createAll(batch).size();
+        batch.clear();
+        return written;
+    }
+
+    private String validate(BookRequest request) {
+        if (request == null) {
+            return "Book must not be null";
+        }
+        Set<ConstraintViolation<BookRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static Map<String, Integer> csvColumns(String header) {
+        if (header.startsWith(BYTE_ORDER_MARK)) {
+            header = header.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).toLowerCase(Locale.ROOT).replace("_", "");
+            columns.putIfAbsent(name, i);
+        }
+        for (String required : List.of("title", "author")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidRequestException("CSV header must have a " + required + " column: " + header);
+            }
+        }
+        return columns;
+    }
+
+    private static BookRequest fromCsv(String line, Map<String, Integer> columns) {
+        List<String> fields = parseCsvLine(line);
+        String year = field(fields, columns.get("publishedyear"));
+        try {
+            return BookRequest.builder()
+                    .title(field(fields, columns.get("title")))
+                    .author(field(fields, columns.get("author")))
+                    .publishedYear(year == null || year.isEmpty() ? null : Integer.valueOf(year))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("publishedYear: not a number: " + year);
+        }
+    }
+
+    private static String field(List<String> fields, Integer index) {
+        return index == null || index >= fields.size() ? null : fields.get(index).trim();
+    }
+
+    /**
+     * Split one CSV line (RFC 4180 quoting, {@code ""} for a literal quote).
+     * Quoted fields cannot span lines, since checkpoints are line offsets.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bookapi.importer;
+
+import com.example.bookapi.exception.InvalidRequestException;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats accepted by {@link BookImporter}.
+ */
+public enum ImportFormat {
+    /** Comma-separated values with a header row naming the title, author and publishedYear columns. */
+    CSV,
+    /** One JSON book object per line. */
+    NDJSON;
+
+    /**
+     * Parse a format name, ignoring case.
+     * @param name the name, or null
+     * @return the format, or null when no name was given
+     * @throws InvalidRequestException if the name is unknown
+     */
+    public static ImportFormat of(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unknown import format: " + name + " (expected csv or ndjson)");
+        }
+    }
+
+    /**
+     * Pick the format from a file extension: .csv, or .ndjson/.jsonl.
+     * @param file the file
+     * @return the format
+     * @throws InvalidRequestException if the extension is not recognised
+     */
+    public static ImportFormat fromFileName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new InvalidRequestException("Cannot tell the format of " + file.getFileName() + "; pass csv or ndjson");
+    }
+}
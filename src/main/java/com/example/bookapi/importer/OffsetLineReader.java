@@ -0,0 +1,108 @@
+package com.example.bookapi.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads UTF-8 lines from a stream and tracks the byte offset just past the last line returned,
+ * which is the position an import checkpoint records. Lines end with {@code \n} or {@code \r\n}.
+ * Only one buffer and the current line are held in memory, whatever the size of the input.
+ */
+final class OffsetLineReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final int maxLineBytes;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private byte[] line = new byte[256];
+    private int position;
+    private int limit;
+    private long offset;
+
+    OffsetLineReader(InputStream in, int maxLineBytes) {
+        this.in = in;
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /**
+     * @return the byte offset just past the last line returned
+     */
+    long offset() {
+        return offset;
+    }
+
+    /**
+     * Move forward to a byte offset, which must be the start of a line.
+     * File streams skip by seeking, so resuming deep into a large file does not read the skipped part.
+     * @param target the offset
+     * @throws java.io.EOFException if the input is shorter than the offset
+     */
+    void skipTo(long target) throws IOException {
+        long remaining = target - offset;
+        if (remaining < 0) {
+            throw new IllegalArgumentException("Cannot move back from offset " + offset + " to " + target);
+        }
+        int buffered = limit - position;
+        if (remaining <= buffered) {
+            position += (int) remaining;
+        } else {
+            position = limit;
+            in.skipNBytes(remaining - buffered);
+        }
+        offset = target;
+    }
+
+    /**
+     * @return the next line without its terminator, or null at the end of the input
+     * @throws IOException if the line is longer than the configured maximum
+     */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                int n = in.read(buffer, 0, buffer.length);
+                if (n <= 0) {
+                    return read ? decode(length) : null;
+                }
+                position = 0;
+                limit = n;
+            }
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            int chunk = position - start;
+            if (length + chunk > maxLineBytes) {
+                throw new IOException("Line at offset " + offset + " is longer than " + maxLineBytes + " bytes");
+            }
+            if (length + chunk > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + chunk));
+            }
+            System.arraycopy(buffer, start, line, length, chunk);
+            length += chunk;
+            offset += chunk;
+            if (position < limit) {
+                position++;
+                offset++;
+                return decode(length);
+            }
+        }
+    }
+
+    private String decode(int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.bookapi.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.pattern.CompositeConverter;
+
+/**
+ * {@code %logfmt(...)} in logback-spring.xml: escapes backslashes, double quotes and line breaks in the wrapped
+ * output, so a message can be written inside a quoted logfmt value without ending it or the line.
+ */
+public class LogfmtEscapeConverter extends CompositeConverter<ILoggingEvent> {
+    @Override
+    protected String transform(ILoggingEvent event, String in) {
+        return escape(in);
+    }
+
+    /**
+     * @return the value with {@code \}, {@code "}, CR, LF and tab escaped; unchanged (not copied) if none occur
+     */
+    static String escape(String value) {
+        int i = 0;
+        while (i < value.length() && !needsEscape(value.charAt(i))) {
+            i++;
+        }
+        if (i == value.length()) {
+            return value;
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '"' -> escaped.append("\\\"");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '\\' || c == '"' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bookapi.logging;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import org.slf4j.event.KeyValuePair;
+
+import java.util.List;
+
+/**
+ * {@code %logfmtKvp} in logback-spring.xml: the key-value pairs of a structured log call as
+ * {@code key="value"}, with values escaped like {@link LogfmtEscapeConverter}. Logback's own {@code %kvp}
+ * quotes values without escaping them, so a title containing a quote would break the line.
+ */
+public class LogfmtKeyValueConverter extends ClassicConverter {
+    @Override
+    public String convert(ILoggingEvent event) {
+        List<KeyValuePair> pairs = event.getKeyValuePairs();
+        if (pairs == null || pairs.isEmpty()) {
+            return "";
+        }
+        StringBuilder line = new StringBuilder();
+        for (KeyValuePair pair : pairs) {
+            if (!line.isEmpty()) {
+                line.append(' ');
+            }
+            line.append(pair.key).append("=\"")
+                    .append(LogfmtEscapeConverter.escape(String.valueOf(pair.value))).append('"');
+        }
+        return line.toString();
+    }
+}
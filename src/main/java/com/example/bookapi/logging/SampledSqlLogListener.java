@@ -0,0 +1,88 @@
+package com.example.bookapi.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Logs JDBC statements cheaply enough to leave on in production:
+ * statements slower than the threshold are logged at WARN with their bind parameters,
+ * and a random {@code sampleRate} fraction of the rest at INFO with SQL only.
+ * Bind parameters are formatted only for slow statements.
+ */
+@Slf4j
+public class SampledSqlLogListener implements QueryExecutionListener {
+    // Bounds log line size for large batches and long text values
+    private static final int MAX_PARAMETER_SETS = 10;
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+
+    /**
+     * @param sampleRate fraction (0..1) of statements below the threshold to log
+     * @param slowThreshold statements taking at least this long are always logged with bind parameters
+     */
+    public SampledSqlLogListener(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        if (elapsed >= slowThresholdMillis) {
+            if (log.isWarnEnabled()) {
+                log.atWarn()
+                        .addKeyValue("durationMs", elapsed)
+                        .addKeyValue("success", execInfo.isSuccess())
+                        .addKeyValue("batchSize", execInfo.getBatchSize())
+                        .addKeyValue("sql", sql(queryInfoList))
+                        .addKeyValue("params", parameters(queryInfoList))
+                        .log("Slow SQL statement");
+            }
+        } else if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.atInfo()
+                    .addKeyValue("durationMs", elapsed)
+                    .addKeyValue("success", execInfo.isSuccess())
+                    .addKeyValue("sql", sql(queryInfoList))
+                    .log("Sampled SQL statement");
+        }
+    }
+
+    private static String sql(List<QueryInfo> queries) {
+        return queries.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+    }
+
+    static String parameters(List<QueryInfo> queries) {
+        return queries.stream()
+                .flatMap(query -> query.getParametersList().stream())
+                .limit(MAX_PARAMETER_SETS)
+                .map(SampledSqlLogListener::parameterSet)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String parameterSet(List<ParameterSetOperation> operations) {
+        return operations.stream()
+                .map(operation -> ParameterSetOperation.isSetNullParameterOperation(operation)
+                        ? "NULL"
+                        : value(operation.getArgs()[1]))
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private static String value(Object value) {
+        String text = String.valueOf(value);
+        return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "..." : text;
+    }
+}
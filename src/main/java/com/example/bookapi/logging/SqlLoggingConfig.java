@@ -0,0 +1,40 @@
+package com.example.bookapi.logging;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps the DataSource with a datasource-proxy that logs slow and sampled statements,
+ * replacing Hibernate's synchronous {@code show-sql} output in production.
+ * Enabled with {@code book-api.logging.sql.enabled=true} (on in the {@code prod} profile).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "book-api.logging.sql", name = "enabled", havingValue = "true")
+public class SqlLoggingConfig {
+    // Static so the post-processor does not force early initialisation of this configuration
+    @Bean
+    public static BeanPostProcessor sqlLoggingDataSourcePostProcessor(
+            @Value("${book-api.logging.sql.sample-rate:0.01}") double sampleRate,
+            @Value("${book-api.logging.sql.slow-threshold:200ms}") Duration slowThreshold) {
+        SampledSqlLogListener listener = new SampledSqlLogListener(sampleRate, slowThreshold);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(listener)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bookapi.metrics;
+
+/**
+ * Hibernate statement and flush counts of the current request thread.
+ * Started and recorded by {@link QueryMetricsFilter}, incremented by {@link StatementCountingSessionListener}.
+ * Work outside a request (startup jobs, async streaming) is not counted.
+ */
+public final class QueryCounts {
+    private static final ThreadLocal<QueryCounts> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int flushes;
+
+    private QueryCounts() {
+    }
+
+    static QueryCounts start() {
+        QueryCounts counts = new QueryCounts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static void statementExecuted() {
+        QueryCounts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    static void flushed() {
+        QueryCounts counts = CURRENT.get();
+        if (counts != null) {
+            counts.flushes++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getFlushes() {
+        return flushes;
+    }
+}
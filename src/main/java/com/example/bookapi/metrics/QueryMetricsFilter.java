@@ -0,0 +1,52 @@
+package com.example.bookapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records Hibernate statements and flushes per request as {@code hibernate.request.statements} and
+ * {@code hibernate.request.flushes}, tagged like {@code http.server.requests} with method and uri template.
+ * Requests that never reached a handler (e.g. rejected by security) are not recorded.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry registry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounts counts = QueryCounts.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryCounts.stop();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (uri != null) {
+                record("hibernate.request.statements", "JDBC statements executed per request", request, uri,
+                        counts.getStatements());
+                record("hibernate.request.flushes", "Hibernate flushes per request", request, uri,
+                        counts.getFlushes());
+            }
+        }
+    }
+
+    private void record(String name, String description, HttpServletRequest request, Object uri, int value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri.toString())
+                .register(registry)
+                .record(value);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bookapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.BaseStream;
+
+/**
+ * Records rows returned by each repository method as {@code repository.rows}, tagged with repository and method.
+ * Latency per repository method comes from Spring Boot's {@code spring.data.repository.invocations} timer.
+ * Counts, modifying queries and streams are not recorded. Each repository method's summary is built once and
+ * kept, so a call only pays for a map lookup.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    private final MeterRegistry registry;
+    private final Map<Key, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    // Inherited methods such as findById are shared by all repositories, so the proxy class is part of the key
+    private record Key(Class<?> repository, Method method) {
+    }
+
+    @AfterReturning(pointcut = "this(org.springframework.data.repository.Repository)", returning = "result")
+    public void recordRows(JoinPoint joinPoint, Object result) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        int rows = rows(signature.getReturnType(), result);
+        if (rows < 0) {
+            return;
+        }
+        Object repository = joinPoint.getThis();
+        summaries.computeIfAbsent(new Key(repository.getClass(), signature.getMethod()),
+                        key -> DistributionSummary.builder("repository.rows")
+                                .description("Rows returned by repository methods")
+                                .baseUnit("rows")
+                                .tag("repository", repositoryName(repository))
+                                .tag("method", key.method().getName())
+                                .register(registry))
+                .record(rows);
+    }
+
+    /**
+     * @return rows in a repository result, or -1 if the method does not return rows
+     */
+    static int rows(Class<?> returnType, Object result) {
+        if (returnType == void.class || Number.class.isAssignableFrom(returnType) || returnType.isPrimitive()) {
+            return -1;
+        }
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Window<?> window) {
+            return window.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Iterable<?> || result instanceof BaseStream<?, ?>) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private static String repositoryName(Object proxy) {
+        return Arrays.stream(AopProxyUtils.proxiedUserInterfaces(proxy))
+                .filter(Repository.class::isAssignableFrom)
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse("unknown");
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bookapi.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Counts JDBC statements (a batch counts once) and flushes into {@link QueryCounts}.
+ * Hibernate creates one instance per session from {@code hibernate.session.events.auto}.
+ */
+public class StatementCountingSessionListener extends BaseSessionEventListener {
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryCounts.statementExecuted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryCounts.statementExecuted();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        QueryCounts.flushed();
+    }
+}
@@ -1,21 +1,42 @@
 package com.example.bookapi.model;
 
+import com.example.bookapi.search.BookIdListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * JPA entity representing a book in the system.
  * Includes title, author, and published year with validation.
  */
 @Entity
+@Table(indexes = {
+        // Title prefix filter and title sort; id is the keyset tie-breaker
+        @Index(name = "idx_book_title_id", columnList = "title, id"),
+        // Author filter and author sort
+        @Index(name = "idx_book_author_id", columnList = "author, id"),
+        // Author filter combined with a year range or year sort
+        @Index(name = "idx_book_author_year", columnList = "author, published_year"),
+        // Year range filter and year sort
+        @Index(name = "idx_book_year_id", columnList = "published_year, id")
+})
+@EntityListeners(BookIdListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Book {
+    /** Ids reserved per sequence call; see {@link #id}. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Pooled sequence: ids are reserved 50 at a time, which lets Hibernate batch inserts.
+     * Keep allocationSize in step with hibernate.jdbc.batch_size.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Title must not be blank")
@@ -27,4 +48,13 @@ public class Book {
     @Min(value = 1500, message = "Published year must be no earlier than 1500")
     @CurrentYearOrEarlier
     private Integer publishedYear;
+
+    /**
+     * Incremented by every update, which only applies if the row still has the version it was read with.
+     * Rows inserted with plain SQL (seed data, snapshot restores) start at 0.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 } 
\ No newline at end of file
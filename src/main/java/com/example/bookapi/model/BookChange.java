@@ -0,0 +1,51 @@
+package com.example.bookapi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One entry of the book change log, written in the transaction that changed the book.
+ * {@code CREATED} and {@code REPLACED} entries carry the book's full state, so a null field is null. In
+ * {@code UPDATED} entries fields that did not change are null, so mirrors overwrite only the non-null fields.
+ */
+@Entity
+@Table(indexes = {
+        // Compaction merges each book's entries in sequence order
+        @Index(name = "idx_book_change_book_seq", columnList = "book_id, seq"),
+        // Compaction finds the last entry older than its cutoff
+        @Index(name = "idx_book_change_changed_at", columnList = "changed_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookChange {
+    public enum Type {
+        CREATED, UPDATED, REPLACED, DELETED
+    }
+
+    /** Assigned by the change log in allocation order, not by a generator. */
+    @Id
+    private Long seq;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Type type;
+
+    private String title;
+
+    private String author;
+
+    private Integer publishedYear;
+
+    /** The book's version after the change, or the version deleted; null for unconditional deletes. */
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
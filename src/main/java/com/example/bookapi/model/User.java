@@ -2,6 +2,7 @@ package com.example.bookapi.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.List;
 
 /**
@@ -9,7 +10,10 @@ import java.util.List;
  * Has a username, role, and a one-to-many relationship to orders.
  */
 @Entity
-@Table(name = "app_user")
+@Table(name = "app_user", indexes = {
+        // Order-count range scans; id keeps the paging order stable
+        @Index(name = "idx_user_order_count", columnList = "order_count, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,6 +30,22 @@ public class User {
     @Column(nullable = false)
     private Role role;
 
+    /**
+     * Materialized number of orders, maintained by OrderService on every order write.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long orderCount = 0L;
+
+    /**
+     * Materialized sum of order amounts, maintained by OrderService on every order write.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Double totalOrderAmount = 0.0;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @com.fasterxml.jackson.annotation.JsonManagedReference
     private List<Order> orders;
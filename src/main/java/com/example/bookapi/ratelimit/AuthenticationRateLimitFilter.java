@@ -0,0 +1,50 @@
+package com.example.bookapi.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits failed authentications per client address. Runs before credentials are checked: a request carrying
+ * credentials from an address that has used up its failures gets {@code 429} with {@code Retry-After} without
+ * reaching the BCrypt check, and a request that ends in {@code 401} counts as a failure.
+ * {@link RateLimitFilter} runs after authorization and never sees requests refused for bad credentials.
+ * Not a Spring bean, so it only runs inside the security filter chain.
+ */
+@RequiredArgsConstructor
+public class AuthenticationRateLimitFilter extends OncePerRequestFilter {
+    private static final byte[] TOO_MANY_FAILURES = RateLimitFilter.body(HttpStatus.TOO_MANY_REQUESTS,
+            "Too many failed authentication attempts");
+
+    private final RateLimiter rateLimiter;
+
+    // Requests without credentials cost no password check, and are limited after authorization
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || request.getHeader(HttpHeaders.AUTHORIZATION) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String address = request.getRemoteAddr();
+        long wait = rateLimiter.checkAuthentication(address);
+        if (wait > 0) {
+            RateLimitFilter.reject(response, HttpStatus.TOO_MANY_REQUESTS,
+                    TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1, TOO_MANY_FAILURES);
+            return;
+        }
+        chain.doFilter(request, response);
+        if (response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            rateLimiter.recordFailedAuthentication(address);
+        }
+    }
+}
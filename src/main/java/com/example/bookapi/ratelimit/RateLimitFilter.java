@@ -0,0 +1,142 @@
+package com.example.bookapi.ratelimit;
+
+import com.example.bookapi.ratelimit.RateLimiter.EndpointClass;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds requests over the caller's rate with {@code 429} and query requests that find the bulkhead full with
+ * {@code 503}, both with {@code Retry-After}, before they reach a controller or the database. Runs after
+ * authorization, so requests are counted against the authenticated principal and requests that will be
+ * refused anyway cost no tokens; anonymous requests are counted per client address.
+ * Not a Spring bean, so it only runs inside the security filter chain.
+ */
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    // Shed requests get a fixed body, so rejecting costs no serialization
+    private static final Map<EndpointClass, byte[]> RATE_LIMITED = new EnumMap<>(EndpointClass.class);
+    private static final byte[] BULKHEAD_FULL = body(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent queries");
+
+    static {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            RATE_LIMITED.put(endpointClass, body(HttpStatus.TOO_MANY_REQUESTS,
+                    "Rate limit exceeded for " + endpointClass.name().toLowerCase(Locale.ROOT) + " requests"));
+        }
+    }
+
+    private final RateLimiter rateLimiter;
+
+    static byte[] body(HttpStatus status, String message) {
+        return ("{\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase()
+                + "\",\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.classify(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long wait = rateLimiter.tryAcquire(principal(request), endpointClass);
+        if (wait > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1,
+                    RATE_LIMITED.get(endpointClass));
+            return;
+        }
+        if (endpointClass != EndpointClass.QUERY) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!rateLimiter.tryEnterQuery()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, BULKHEAD_FULL);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Streaming exports keep their permit until the response is written
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ExitQueryListener());
+            } else {
+                rateLimiter.exitQuery();
+            }
+        }
+    }
+
+    private static String principal(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return "anonymous:" + request.getRemoteAddr();
+        }
+        return authentication.getName();
+    }
+
+    static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, byte[] body)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private class ExitQueryListener implements AsyncListener {
+        private final AtomicBoolean exited = new AtomicBoolean();
+
+        private void exit() {
+            if (exited.compareAndSet(false, true)) {
+                rateLimiter.exitQuery();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            exit();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            exit();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            exit();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register on the new async cycle, which would otherwise drop this listener
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.bookapi.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission control for the API. Every principal gets one token bucket per {@link EndpointClass}, so a
+ * client pulling reports cannot spend the budget of its own cheap reads, let alone anyone else's. Query
+ * endpoints additionally share a bulkhead: at most {@code max-concurrent-queries} of them run at once, across
+ * all principals, so the database keeps capacity for everything else.
+ * <p>
+ * Failed authentications are limited separately, per client address, before credentials are checked: an
+ * address that keeps sending wrong passwords or bad tokens is refused without paying for another BCrypt check.
+ * <p>
+ * Buckets of principals that go quiet expire; a returning principal starts with a full bucket, which is what
+ * it would have refilled to anyway.
+ */
+@Component
+public class RateLimiter {
+    /**
+     * What a request costs the database, which decides the bucket it draws from.
+     */
+    public enum EndpointClass {
+        // Single-row reads, mostly served from cache or the id bitmap
+        READ,
+        // Unpaginated lists, search, export and the user reports
+        QUERY,
+        // Anything that is not a GET
+        WRITE;
+
+        /**
+         * @return the class of the request, or null if it is not limited
+         */
+        public static EndpointClass classify(String method, String path) {
+            if (path.startsWith("/actuator/") || path.startsWith("/h2-console")) {
+                return null;
+            }
+            if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+                return HttpMethod.OPTIONS.matches(method) ? null : WRITE;
+            }
+            if (path.equals("/books") || path.equals("/books/search") || path.equals("/books/export")
+                    || path.equals("/books/changes") || path.startsWith("/users/")) {
+                return QUERY;
+            }
+            return READ;
+        }
+    }
+
+    private record Key(String principal, EndpointClass endpointClass) {
+    }
+
+    private record Limit(double rate, int burst) {
+    }
+
+    private final boolean enabled;
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+    private final Cache<Key, TokenBucket> buckets;
+    private final Limit failedAuthenticationLimit;
+    private final Cache<String, TokenBucket> failedAuthentications;
+    private final int maxConcurrentQueries;
+    private final Semaphore queries;
+    private final Counter rateLimited;
+    private final Counter bulkheadFull;
+
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${book-api.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${book-api.rate-limit.read.rate:200}") double readRate,
+                       @Value("${book-api.rate-limit.read.burst:400}") int readBurst,
+                       @Value("${book-api.rate-limit.query.rate:20}") double queryRate,
+                       @Value("${book-api.rate-limit.query.burst:40}") int queryBurst,
+                       @Value("${book-api.rate-limit.write.rate:50}") double writeRate,
+                       @Value("${book-api.rate-limit.write.burst:100}") int writeBurst,
+                       @Value("${book-api.rate-limit.failed-authentication.rate:1}") double failedAuthenticationRate,
+                       @Value("${book-api.rate-limit.failed-authentication.burst:10}") int failedAuthenticationBurst,
+                       @Value("${book-api.rate-limit.max-concurrent-queries:8}") int maxConcurrentQueries,
+                       @Value("${book-api.rate-limit.max-principals:100000}") long maxPrincipals) {
+        if (maxConcurrentQueries < 1) {
+            throw new IllegalArgumentException("book-api.rate-limit.max-concurrent-queries must be at least 1");
+        }
+        this.enabled = enabled;
+        limits.put(EndpointClass.READ, new Limit(readRate, readBurst));
+        limits.put(EndpointClass.QUERY, new Limit(queryRate, queryBurst));
+        limits.put(EndpointClass.WRITE, new Limit(writeRate, writeBurst));
+        // Fail at startup rather than on the first request
+        limits.values().forEach(limit -> new TokenBucket(limit.rate(), limit.burst()));
+        this.failedAuthenticationLimit = new Limit(failedAuthenticationRate, failedAuthenticationBurst);
+        new TokenBucket(failedAuthenticationRate, failedAuthenticationBurst);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxPrincipals)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.failedAuthentications = Caffeine.newBuilder()
+                .maximumSize(maxPrincipals)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        this.queries = new Semaphore(maxConcurrentQueries);
+        // Counted with the other rejected requests, tagged like GlobalExceptionHandler's
+        this.rateLimited = meterRegistry.counter("api.errors", "exception", "RateLimitExceeded",
+                "status", String.valueOf(HttpStatus.TOO_MANY_REQUESTS.value()));
+        this.bulkheadFull = meterRegistry.counter("api.errors", "exception", "BulkheadFull",
+                "status", String.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        Gauge.builder("api.queries.active", this, RateLimiter::getActiveQueries)
+                .description("Query requests holding a bulkhead permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a token from the principal's bucket for the endpoint class.
+     * @param principal who is asking
+     * @param endpointClass what they are asking for
+     * @return 0 if the request may proceed, otherwise nanoseconds until it would be allowed
+     */
+    public long tryAcquire(String principal, EndpointClass endpointClass) {
+        if (!enabled) {
+            return 0;
+        }
+        TokenBucket bucket = buckets.get(new Key(principal, endpointClass), key -> {
+            Limit limit = limits.get(key.endpointClass());
+            return new TokenBucket(limit.rate(), limit.burst());
+        });
+        long wait = bucket.tryTake(System.nanoTime());
+        if (wait > 0) {
+            rateLimited.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Check whether an address may still try to authenticate, without spending anything.
+     * @param address the client address
+     * @return 0 if it may, otherwise nanoseconds until its failed attempts have drained enough
+     */
+    public long checkAuthentication(String address) {
+        if (!enabled) {
+            return 0;
+        }
+        TokenBucket bucket = failedAuthentications.getIfPresent(address);
+        long wait = bucket == null ? 0 : bucket.timeToNext(System.nanoTime());
+        if (wait > 0) {
+            rateLimited.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Count a request from the address that was refused for bad credentials.
+     * @param address the client address
+     */
+    public void recordFailedAuthentication(String address) {
+        if (!enabled) {
+            return;
+        }
+        failedAuthentications.get(address,
+                        key -> new TokenBucket(failedAuthenticationLimit.rate(), failedAuthenticationLimit.burst()))
+                .tryTake(System.nanoTime());
+    }
+
+    /**
+     * Enter the query bulkhead without waiting. Every successful call must be paired with {@link #exitQuery()}.
+     * @return whether a permit was free
+     */
+    public boolean tryEnterQuery() {
+        if (!enabled) {
+            return true;
+        }
+        if (queries.tryAcquire()) {
+            return true;
+        }
+        bulkheadFull.increment();
+        return false;
+    }
+
+    /**
+     * Release a permit taken by {@link #tryEnterQuery()}.
+     */
+    public void exitQuery() {
+        if (enabled) {
+            queries.release();
+        }
+    }
+
+    /**
+     * @return whether requests are limited at all
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return number of query requests currently running
+     */
+    public int getActiveQueries() {
+        return maxConcurrentQueries - queries.availablePermits();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bookapi.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count and a refill time it keeps one value, the time at which
+ * the bucket would be full again if nothing more were taken (the generic cell rate algorithm), so taking a
+ * token is a single compare-and-set.
+ */
+final class TokenBucket {
+    private final long nanosPerToken;
+    private final long burstNanos;
+    // Starts long past, so a new bucket is full
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param tokensPerSecond the refill rate
+     * @param burst how many tokens a full bucket holds
+     */
+    TokenBucket(double tokensPerSecond, int burst) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and a burst of at least 1");
+        }
+        this.nanosPerToken = (long) Math.ceil(1e9 / tokensPerSecond);
+        this.burstNanos = nanosPerToken * burst;
+    }
+
+    /**
+     * Take a token if one is available.
+     * @param now the current {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise nanoseconds until one will be available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            long missing = next - now - burstNanos;
+            if (missing > 0) {
+                return missing;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Check for a token without taking it.
+     * @param now the current {@link System#nanoTime()}
+     * @return 0 if a token is available, otherwise nanoseconds until one will be
+     */
+    long timeToNext(long now) {
+        return Math.max(0, Math.max(fullAt.get(), now) + nanosPerToken - now - burstNanos);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bookapi.replica;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * H2 row trigger that records the id of every inserted, updated or deleted row in the
+ * {@code replication_log} table. The log row is written in the same transaction as the change,
+ * so it only becomes visible to {@link ReplicaSet} once that transaction commits.
+ */
+public class ChangeLogTrigger implements Trigger {
+    private String table;
+    private int idColumn;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName,
+                     boolean before, int type) throws SQLException {
+        table = tableName.toLowerCase(Locale.ROOT);
+        try (PreparedStatement ps = conn.prepareStatement("SELECT ORDINAL_POSITION FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND COLUMN_NAME = 'ID'")) {
+            ps.setString(1, schemaName);
+            ps.setString(2, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Table " + tableName + " has no ID column to replicate by");
+                }
+                idColumn = rs.getInt(1) - 1;
+            }
+        }
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO " + ReplicaSet.LOG_TABLE + " (table_name, row_id) VALUES (?, ?)")) {
+            ps.setString(1, table);
+            ps.setObject(2, (newRow != null ? newRow : oldRow)[idColumn]);
+            ps.executeUpdate();
+        }
+    }
+}
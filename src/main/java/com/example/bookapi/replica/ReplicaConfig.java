@@ -0,0 +1,63 @@
+package com.example.bookapi.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write routing, enabled by listing replica JDBC URLs in {@code book-api.datasource.replica.urls}
+ * (the {@code replica} profile uses two in-memory H2 databases).
+ * Read-only transactions get their connection from a replica and everything else from the primary.
+ * The proxy fetches the connection lazily, after Spring has marked the transaction read-only.
+ * That needs {@code spring.jpa.open-in-view=false}: an open session holds on to its first connection,
+ * so a write after a read in the same request would go to the replica.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "book-api.datasource.replica", name = "urls")
+public class ReplicaConfig {
+    // The pools are not beans, so the DataSource below is the only one that gets wrapped and injected
+    @Bean(destroyMethod = "close")
+    public ReplicaSet replicaSet(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+                                 @Value("${book-api.datasource.replica.urls}") List<String> urls,
+                                 @Value("${book-api.datasource.replica.sync-interval:100ms}") Duration syncInterval,
+                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("Replica routing requires spring.jpa.open-in-view=false");
+        }
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricRegistry(meterRegistry);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            primary.copyStateTo(replica);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaSet(primary, replicas, syncInterval);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaSet replicaSet, MeterRegistry meterRegistry,
+                                 @Value("${book-api.datasource.replica.max-lag:1s}") Duration maxLag) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaSet.getPrimary());
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(replicaSet, maxLag, meterRegistry));
+        return dataSource;
+    }
+}
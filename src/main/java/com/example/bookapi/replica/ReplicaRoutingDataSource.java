@@ -0,0 +1,76 @@
+package com.example.bookapi.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections for read-only transactions: round-robin over the replicas whose lag is within
+ * {@code maxLag}, or the primary when none is. A replica that refuses a connection is skipped.
+ * Routes are counted in {@code datasource.read.routes}, tagged with the pool that served them,
+ * and each replica's lag is published as {@code datasource.replica.lag}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private final ReplicaSet replicaSet;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routes = new HashMap<>();
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicaSet = replicaSet;
+        this.maxLag = maxLag;
+        routes.put(replicaSet.getPrimary().getPoolName(), route(meterRegistry, replicaSet.getPrimary().getPoolName()));
+        for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+            routes.put(replica.getName(), route(meterRegistry, replica.getName()));
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lag().toMillis() / 1000.0)
+                    .description("How far the replica may be behind the primary")
+                    .baseUnit("seconds")
+                    .tag("pool", replica.getName())
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder("datasource.read.routes")
+                .description("Read-only transactions by the pool that served them")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        List<ReplicaSet.Replica> replicas = replicaSet.getReplicas();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaSet.Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.lag().compareTo(maxLag) > 0) {
+                continue;
+            }
+            try {
+                Connection connection = replica.getPool().getConnection();
+                routes.get(replica.getName()).increment();
+                return connection;
+            } catch (SQLException e) {
+                log.atWarn().addKeyValue("replica", replica.getName()).log("Replica unavailable, trying the next one");
+            }
+        }
+        routes.get(replicaSet.getPrimary().getPoolName()).increment();
+        return replicaSet.getPrimary().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Replica routing uses the pools' own credentials");
+    }
+}
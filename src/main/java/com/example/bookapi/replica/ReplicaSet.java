@@ -0,0 +1,266 @@
+package com.example.bookapi.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The primary connection pool plus H2 databases kept in sync with it, standing in for streaming read replicas.
+ * <p>
+ * {@link ChangeLogTrigger} records the ids of changed rows in {@code replication_log} inside each writing
+ * transaction, so rolled-back changes are never copied. A background thread reads the log, copies the
+ * current state of those rows to every replica and deletes the entries. Copying row state instead of
+ * replaying statements is idempotent and does not depend on commit order. A replica that is new or missed
+ * a batch gets a full copy instead. Bulk changes that skip row triggers, such as the {@code TRUNCATE} of a
+ * snapshot restore, are only picked up by that initial copy, which is why syncing starts once the
+ * application is ready.
+ */
+@Slf4j
+public class ReplicaSet implements AutoCloseable {
+    static final String LOG_TABLE = "replication_log";
+    // Parents first, so foreign keys on a replica always find their rows
+    private static final List<String> TABLES = List.of("app_user", "book", "book_order");
+    private static final int BATCH_SIZE = 1000;
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration syncInterval;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaSet(HikariDataSource primary, List<HikariDataSource> replicaPools, Duration syncInterval) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.syncInterval = syncInterval;
+    }
+
+    /**
+     * A replica database and how far it has caught up.
+     */
+    public static final class Replica {
+        private final HikariDataSource pool;
+        // Primary time (epoch ms) whose committed changes are all on this replica; -1 until the first copy
+        private volatile long caughtUpTo = -1;
+        private boolean needsCopy = true;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        public String getName() {
+            return pool.getPoolName();
+        }
+
+        public HikariDataSource getPool() {
+            return pool;
+        }
+
+        /**
+         * @return how far behind the primary this replica may be; effectively infinite before the first copy
+         */
+        public Duration lag() {
+            long upTo = caughtUpTo;
+            return upTo < 0 ? Duration.ofMillis(Long.MAX_VALUE) : Duration.ofMillis(System.currentTimeMillis() - upTo);
+        }
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Install the change-log triggers and start syncing. Until the first copy completes
+     * every replica reports unbounded lag, so reads stay on the primary.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws SQLException {
+        try (Connection con = primary.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + LOG_TABLE
+                    + " (seq BIGINT AUTO_INCREMENT PRIMARY KEY, table_name VARCHAR(64) NOT NULL, row_id BIGINT NOT NULL)");
+            for (String table : TABLES) {
+                statement.execute("CREATE TRIGGER IF NOT EXISTS replicate_" + table + " AFTER INSERT, UPDATE, DELETE ON "
+                        + table + " FOR EACH ROW CALL '" + ChangeLogTrigger.class.getName() + "'");
+            }
+        }
+        executor.scheduleWithFixedDelay(this::syncSafely, 0, syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void syncSafely() {
+        try {
+            sync();
+        } catch (Exception e) {
+            log.atWarn().setCause(e).log("Replica sync failed; replicas fall behind until the next round");
+        }
+    }
+
+    /**
+     * One sync round: drain the change log into the replicas that are current, then fully copy the rest.
+     * Every replica that finishes the round holds all changes committed before it started.
+     */
+    void sync() throws SQLException {
+        long started = System.currentTimeMillis();
+        try (Connection con = primary.getConnection()) {
+            List<Replica> current = new ArrayList<>(replicas.stream().filter(replica -> !replica.needsCopy).toList());
+            int fetched;
+            do {
+                List<Long> seqs = new ArrayList<>();
+                Map<String, Set<Long>> idsByTable = new HashMap<>();
+                try (Statement statement = con.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT seq, table_name, row_id FROM " + LOG_TABLE
+                             + " ORDER BY seq FETCH FIRST " + BATCH_SIZE + " ROWS ONLY")) {
+                    while (rs.next()) {
+                        seqs.add(rs.getLong(1));
+                        idsByTable.computeIfAbsent(rs.getString(2), table -> new HashSet<>()).add(rs.getLong(3));
+                    }
+                }
+                fetched = seqs.size();
+                if (fetched == 0) {
+                    break;
+                }
+                for (Iterator<Replica> it = current.iterator(); it.hasNext(); ) {
+                    Replica replica = it.next();
+                    try {
+                        apply(con, replica, idsByTable);
+                    } catch (SQLException e) {
+                        log.atWarn().addKeyValue("replica", replica.getName()).setCause(e)
+                                .log("Replica missed a change batch and will be recopied");
+                        // Route reads away now; the copy drops and recreates its tables
+                        replica.caughtUpTo = -1;
+                        replica.needsCopy = true;
+                        it.remove();
+                    }
+                }
+                try (PreparedStatement ps = con.prepareStatement("DELETE FROM " + LOG_TABLE + " WHERE seq = ANY(?)")) {
+                    ps.setArray(1, con.createArrayOf("BIGINT", seqs.toArray()));
+                    ps.executeUpdate();
+                }
+            } while (fetched == BATCH_SIZE);
+            current.forEach(replica -> replica.caughtUpTo = started);
+
+            for (Replica replica : replicas) {
+                if (replica.needsCopy) {
+                    copy(con, replica);
+                    replica.needsCopy = false;
+                    replica.caughtUpTo = started;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the current primary state of the changed rows to one replica in a single transaction:
+     * rows that still exist are merged by id, and rows that are gone are deleted.
+     */
+    private void apply(Connection primaryCon, Replica replica, Map<String, Set<Long>> idsByTable) throws SQLException {
+        try (Connection replicaCon = replica.pool.getConnection()) {
+            replicaCon.setReadOnly(false);
+            replicaCon.setAutoCommit(false);
+            try {
+                for (String table : TABLES) {
+                    Set<Long> ids = idsByTable.get(table);
+                    if (ids != null) {
+                        copyRows(primaryCon, replicaCon, table, ids);
+                    }
+                }
+                replicaCon.commit();
+            } catch (SQLException e) {
+                replicaCon.rollback();
+                throw e;
+            } finally {
+                replicaCon.setAutoCommit(true);
+                replicaCon.setReadOnly(true);
+            }
+        }
+    }
+
+    private static void copyRows(Connection primaryCon, Connection replicaCon, String table, Set<Long> ids) throws SQLException {
+        Set<Long> missing = new HashSet<>(ids);
+        try (PreparedStatement select = primaryCon.prepareStatement("SELECT * FROM " + table + " WHERE id = ANY(?)")) {
+            select.setArray(1, primaryCon.createArrayOf("BIGINT", ids.toArray()));
+            try (ResultSet rs = select.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                StringJoiner names = new StringJoiner(", ");
+                StringJoiner params = new StringJoiner(", ");
+                int idColumn = 0;
+                for (int i = 1; i <= columns; i++) {
+                    names.add(meta.getColumnName(i));
+                    params.add("?");
+                    if (meta.getColumnName(i).equalsIgnoreCase("id")) {
+                        idColumn = i;
+                    }
+                }
+                try (PreparedStatement merge = replicaCon.prepareStatement(
+                        "MERGE INTO " + table + " (" + names + ") KEY (id) VALUES (" + params + ")")) {
+                    while (rs.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            merge.setObject(i, rs.getObject(i));
+                        }
+                        merge.addBatch();
+                        missing.remove(rs.getLong(idColumn));
+                    }
+                    merge.executeBatch();
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            try (PreparedStatement delete = replicaCon.prepareStatement("DELETE FROM " + table + " WHERE id = ANY(?)")) {
+                delete.setArray(1, replicaCon.createArrayOf("BIGINT", missing.toArray()));
+                delete.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Replace the replica's contents with a copy of the replicated tables, streamed from H2's {@code SCRIPT}.
+     */
+    private void copy(Connection primaryCon, Replica replica) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection replicaCon = replica.pool.getConnection();
+             Statement target = replicaCon.createStatement();
+             Statement source = primaryCon.createStatement()) {
+            replicaCon.setReadOnly(false);
+            try {
+                target.execute("DROP ALL OBJECTS");
+                try (ResultSet script = source.executeQuery(
+                        "SCRIPT NOPASSWORDS NOSETTINGS NOVERSION TABLE " + String.join(", ", TABLES))) {
+                    while (script.next()) {
+                        String sql = script.getString(1);
+                        // Skip the account (the replica has its own) and the change-log triggers
+                        if (!sql.startsWith("--") && !sql.startsWith("CREATE USER") && !sql.startsWith("CREATE FORCE TRIGGER")) {
+                            target.execute(sql);
+                        }
+                    }
+                }
+                // The primary already enforced the constraints; batches may arrive in any order
+                target.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            } finally {
+                replicaCon.setReadOnly(true);
+            }
+        }
+        log.atInfo().addKeyValue("replica", replica.getName())
+                .addKeyValue("millis", (System.nanoTime() - start) / 1_000_000).log("Replica copied from primary");
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+}
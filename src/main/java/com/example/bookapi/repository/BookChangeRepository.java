@@ -0,0 +1,66 @@
+package com.example.bookapi.repository;
+
+import com.example.bookapi.model.BookChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+// Every read is declared read-write: the change log is only consistent on the primary
+@Repository
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+    /**
+     * @return the highest sequence number in the log, or null if it is empty
+     */
+    @Transactional
+    @Query("SELECT MAX(c.seq) FROM BookChange c")
+    Long findMaxSeq();
+
+    /**
+     * A page of the log in sequence order.
+     * @param after exclusive lower bound
+     * @param upTo inclusive upper bound
+     * @param limit maximum number of entries
+     * @return the entries
+     */
+    @Transactional
+    List<BookChange> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeq(long after, long upTo, Limit limit);
+
+    /**
+     * @param before the instant entries must be older than
+     * @return the latest entry written before the instant, if any
+     */
+    @Transactional
+    BookChange findFirstByChangedAtBeforeOrderByChangedAtDesc(Instant before);
+
+    /**
+     * @return the ids of books with entries in the range {@code (after, upTo]}
+     */
+    @Transactional
+    @Query("SELECT DISTINCT c.bookId FROM BookChange c WHERE c.seq > :after AND c.seq <= :upTo")
+    List<Long> findBookIdsChangedBetween(long after, long upTo);
+
+    /**
+     * @return every entry of the given books up to {@code upTo}, grouped by book and in sequence order
+     */
+    @Transactional
+    List<BookChange> findByBookIdInAndSeqLessThanEqualOrderByBookIdAscSeqAsc(Collection<Long> bookIds, long upTo);
+
+    /**
+     * Log a creation for every book, numbered from {@code firstSeq} in id order.
+     * @param firstSeq the sequence number of the first entry
+     * @return number of entries written
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "INSERT INTO book_change (seq, book_id, type, title, author, published_year, version, changed_at) "
+            + "SELECT CAST(:firstSeq AS BIGINT) - 1 + ROW_NUMBER() OVER (ORDER BY id), id, 'CREATED', title, author, published_year, version, "
+            + "CURRENT_TIMESTAMP FROM book")
+    int logEveryBookAsCreated(long firstSeq);
+}
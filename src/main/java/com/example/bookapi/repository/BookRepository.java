@@ -1,9 +1,89 @@
 package com.example.bookapi.repository;
 
 import com.example.bookapi.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.stream.Stream;
  
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
-} 
\ No newline at end of file
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+    /**
+     * Stream all books ordered by id, reading rows from the cursor in fetch-size batches.
+     * Must be consumed inside a transaction and closed afterwards.
+     * @return a stream of books
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+    // Redeclared read-write so that id lookups stay on the primary when read-only transactions go to
+    // replicas: they back the book cache and the read-modify-write of updates and deletes
+
+    @Override
+    @Transactional
+    Optional<Book> findById(Long id);
+
+    @Override
+    @Transactional
+    boolean existsById(Long id);
+
+    /**
+     * Change the given fields of a book in one statement, if it still has the expected version.
+     * Bypasses the persistence context, so callers must not hold the book.
+     * @param id the book id
+     * @param version the version the change was based on
+     * @param title the new title, or null to keep it
+     * @param author the new author, or null to keep it
+     * @param publishedYear the new year, or null to keep it
+     * @return number of updated books: 0 if the book is gone or has another version
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.title = COALESCE(:title, b.title), b.author = COALESCE(:author, b.author), "
+            + "b.publishedYear = COALESCE(:publishedYear, b.publishedYear), b.version = b.version + 1 "
+            + "WHERE b.id = :id AND b.version = :version")
+    int patch(Long id, long version, String title, String author, Integer publishedYear);
+
+    /**
+     * Replace every field of a book in one statement if it still has the expected version. Null fields are
+     * stored as null.
+     * @param id the book id
+     * @param version the version the replacement was based on
+     * @return number of updated books: 0 if the book is gone or has another version
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.title = :title, b.author = :author, b.publishedYear = :publishedYear, "
+            + "b.version = b.version + 1 WHERE b.id = :id AND b.version = :version")
+    int replace(Long id, long version, String title, String author, Integer publishedYear);
+
+    /**
+     * Delete a book in one statement; {@code deleteById} loads it first.
+     * @param id the book id
+     * @return number of deleted books
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Book b WHERE b.id = :id")
+    int deleteBook(Long id);
+
+    /**
+     * Delete a book in one statement if it still has the expected version.
+     * @param id the book id
+     * @param version the version the delete was based on
+     * @return number of deleted books: 0 if the book is gone or has another version
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Book b WHERE b.id = :id AND b.version = :version")
+    int deleteBook(Long id, long version);
+}
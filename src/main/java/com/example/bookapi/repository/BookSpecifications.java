@@ -0,0 +1,49 @@
+package com.example.bookapi.repository;
+
+import com.example.bookapi.dto.BookFilter;
+import com.example.bookapi.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * JPA Specifications for filtering books.
+ * Each predicate matches one of the indexes declared on {@link Book}.
+ */
+public final class BookSpecifications {
+    private BookSpecifications() {
+    }
+
+    /**
+     * Combine all criteria of the filter. An empty filter matches every book.
+     * @param filter the filter criteria
+     * @return the combined specification
+     */
+    public static Specification<Book> matching(BookFilter filter) {
+        return Specification.where(hasAuthor(filter.getAuthor()))
+                .and(publishedFrom(filter.getYearFrom()))
+                .and(publishedTo(filter.getYearTo()))
+                .and(titleStartsWith(filter.getTitlePrefix()));
+    }
+
+    public static Specification<Book> hasAuthor(String author) {
+        return author == null ? null : (root, query, cb) -> cb.equal(root.get("author"), author);
+    }
+
+    public static Specification<Book> publishedFrom(Integer year) {
+        return year == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("publishedYear"), year);
+    }
+
+    public static Specification<Book> publishedTo(Integer year) {
+        return year == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("publishedYear"), year);
+    }
+
+    /**
+     * Case-sensitive prefix match, so the title index can be used for a range scan.
+     */
+    public static Specification<Book> titleStartsWith(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("title"), pattern, '\\');
+    }
+}
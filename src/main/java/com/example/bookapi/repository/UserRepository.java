@@ -3,7 +3,11 @@ package com.example.bookapi.repository;
 import com.example.bookapi.model.User;
 import com.example.bookapi.model.User.Role;
 import com.example.bookapi.dto.UserOrderTotal;
+import com.example.bookapi.dto.UserSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -15,26 +19,60 @@ import java.util.Map;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    String USER_SUMMARY = "new com.example.bookapi.dto.UserSummary(u.id, u.username, u.role, u.orderCount, u.totalOrderAmount)";
+
     /**
-     * Find users with more than 3 orders.
-     * @return list of users
+     * Find users with more than 3 orders, as a range scan on the order count index.
+     * @return list of user summaries
      */
-    @Query("SELECT u FROM User u WHERE SIZE(u.orders) > 3")
-    List<User> findUsersWithMoreThan3Orders();
+    @Query("SELECT " + USER_SUMMARY + " FROM User u WHERE u.orderCount > 3")
+    List<UserSummary> findUsersWithMoreThan3Orders();
 
     /**
-     * Find users who have not placed any orders.
-     * @return list of users
+     * Find users who have not placed any orders, as a lookup on the order count index.
+     * @return list of user summaries
      */
-    @Query("SELECT u FROM User u WHERE u.orders IS EMPTY")
-    List<User> findUsersWithNoOrders();
+    @Query("SELECT " + USER_SUMMARY + " FROM User u WHERE u.orderCount = 0")
+    List<UserSummary> findUsersWithNoOrders();
 
     /**
-     * Find total order amount per user.
-     * @return list of username/totalAmount pairs
+     * Find users whose order count is within the given bounds (inclusive).
+     * @param min the minimum order count
+     * @param max the maximum order count
+     * @param pageable pagination parameters
+     * @return a page of user summaries
      */
-    @Query("SELECT new com.example.bookapi.dto.UserOrderTotal(u.username, SUM(o.amount)) FROM User u JOIN u.orders o GROUP BY u.username")
+    @Query(value = "SELECT " + USER_SUMMARY + " FROM User u WHERE u.orderCount BETWEEN :min AND :max",
+            countQuery = "SELECT COUNT(u) FROM User u WHERE u.orderCount BETWEEN :min AND :max")
+    Page<UserSummary> findByOrderCountBetween(long min, long max, Pageable pageable);
+
+    /**
+     * Find total order amount per user, read from the materialized per-user totals.
+     * @return list of username/totalAmount pairs for users with at least one order
+     */
+    @Query("SELECT new com.example.bookapi.dto.UserOrderTotal(u.username, u.totalOrderAmount) FROM User u WHERE u.orderCount > 0")
     List<UserOrderTotal> findTotalOrderAmountPerUser();
 
+    /**
+     * Atomically adjust a user's materialized order count and total.
+     * @param userId the user id
+     * @param count the change in order count
+     * @param amount the change in total amount
+     * @return number of updated users
+     */
+    // The explicit cast works around Hibernate rendering an invalid float precision for H2
+    @Modifying
+    @Query("UPDATE User u SET u.orderCount = u.orderCount + :count, u.totalOrderAmount = u.totalOrderAmount + CAST(:amount AS Double) WHERE u.id = :userId")
+    int adjustOrderTotals(Long userId, long count, double amount);
+
+    /**
+     * Recompute every user's materialized order count and total from the orders table.
+     * @return number of updated users
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.orderCount = (SELECT COUNT(o) FROM Order o WHERE o.user = u), "
+            + "u.totalOrderAmount = (SELECT COALESCE(SUM(o.amount), 0) FROM Order o WHERE o.user = u)")
+    int rebuildOrderTotals();
+
     List<User> findByRole(Role role);
 } 
\ No newline at end of file
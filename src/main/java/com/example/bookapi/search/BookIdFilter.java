@@ -0,0 +1,116 @@
+package com.example.bookapi.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bitmap of existing book ids, so lookups of ids that do not exist are answered without a query.
+ * Ids come from a sequence and are dense, so one bit per id up to the highest id is smaller and exact
+ * where a Bloom filter would be approximate. Bits live in 8 KB pages that are allocated on first use.
+ * <p>
+ * A clear bit must mean the book does not exist; a set bit only means it might. So ids are added when
+ * they are persisted, before their transaction commits ({@link BookIdListener}), and removed only after
+ * a delete commits. Rows written around JPA are only seen by {@link #load()}, which adds without clearing.
+ * Until the first load finishes every id might exist.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookIdFilter {
+    private static final int PAGE_SHIFT = 16;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_SHIFT) / Long.SIZE;
+    // Ids up to 2^31 are tracked; larger ones (up to the highest added) always might exist
+    private static final long CAPACITY = 1L << 31;
+
+    // Plain JDBC: only ids are needed, not entities
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicReferenceArray<AtomicLongArray> pages = new AtomicReferenceArray<>((int) (CAPACITY >>> PAGE_SHIFT));
+    private final AtomicLong maxId = new AtomicLong();
+    private volatile boolean loaded;
+
+    /**
+     * Add every id in the book table. Runs once the application has started, and after bulk loads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long[] count = {0};
+        // Outside a transaction, so it reads the primary even when read-only transactions go to replicas
+        jdbcTemplate.query("SELECT id FROM book", (RowCallbackHandler) rs -> {
+            add(rs.getLong(1));
+            count[0]++;
+        });
+        loaded = true;
+        log.info("Book id filter loaded with {} ids up to {}", count[0], maxId.get());
+    }
+
+    /**
+     * @param id a book id
+     * @return false if the book certainly does not exist
+     */
+    public boolean mightExist(long id) {
+        if (!loaded) {
+            return true;
+        }
+        if (id <= 0 || id > maxId.get()) {
+            return false;
+        }
+        if (id >= CAPACITY) {
+            return true;
+        }
+        AtomicLongArray page = pages.get((int) (id >>> PAGE_SHIFT));
+        return page != null && (page.get(word(id)) & mask(id)) != 0;
+    }
+
+    /**
+     * Record an id that exists, or is about to.
+     * @param id the book id
+     */
+    public void add(long id) {
+        if (id <= 0) {
+            return;
+        }
+        maxId.accumulateAndGet(id, Math::max);
+        if (id >= CAPACITY) {
+            return;
+        }
+        int index = (int) (id >>> PAGE_SHIFT);
+        AtomicLongArray page = pages.get(index);
+        if (page == null) {
+            pages.compareAndSet(index, null, new AtomicLongArray(WORDS_PER_PAGE));
+            page = pages.get(index);
+        }
+        page.accumulateAndGet(word(id), mask(id), (bits, mask) -> bits | mask);
+    }
+
+    /**
+     * Forget an id whose deletion has committed.
+     * @param id the book id
+     */
+    public void remove(long id) {
+        if (id <= 0 || id >= CAPACITY) {
+            return;
+        }
+        AtomicLongArray page = pages.get((int) (id >>> PAGE_SHIFT));
+        if (page != null) {
+            page.accumulateAndGet(word(id), ~mask(id), (bits, mask) -> bits & mask);
+        }
+    }
+
+    private static int word(long id) {
+        return (int) (id & ((1 << PAGE_SHIFT) - 1)) >>> 6;
+    }
+
+    private static long mask(long id) {
+        return 1L << id;
+    }
+}
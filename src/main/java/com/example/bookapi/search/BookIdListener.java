@@ -0,0 +1,22 @@
+package com.example.bookapi.search;
+
+import com.example.bookapi.model.Book;
+import jakarta.persistence.PostPersist;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Adds persisted books to the {@link BookIdFilter} before their transaction commits, so the filter
+ * never reports a committed book as missing. Hibernate creates it through Spring while the entity manager
+ * factory is being built, before the filter can exist, so the filter is looked up on use. JPA-only test
+ * slices have no filter at all.
+ */
+@RequiredArgsConstructor
+public class BookIdListener {
+    private final ObjectProvider<BookIdFilter> bookIdFilter;
+
+    @PostPersist
+    void persisted(Book book) {
+        bookIdFilter.ifAvailable(filter -> filter.add(book.getId()));
+    }
+}
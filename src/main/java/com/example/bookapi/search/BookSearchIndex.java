@@ -0,0 +1,606 @@
+package com.example.bookapi.search;
+
+import com.example.bookapi.dto.BookMapper;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.model.Book;
+import com.example.bookapi.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over book titles and authors, ranked with BM25.
+ * Terms are lowercased alphanumeric runs; the last query term also matches as a prefix, expanded to its most
+ * frequent completions.
+ * <p>
+ * A term's postings are split into impact classes: the books in a class share their frequency of the term and
+ * their length, so they score the same for it. Each class is a pair of primitive arrays, book ids in ascending
+ * order and the matching ordinals. Since a book has one length, its score is fixed by the class it falls in for
+ * each query term. A search therefore walks combinations of classes of one length, best combination first, and
+ * intersects their id arrays, probing the larger with a galloping search. It stops once the k-th best book scores
+ * above the next combination, which bounds every book not yet found, like the per-term upper bounds of MaxScore.
+ * A query over common terms reads only the small, high-impact classes of its terms and the head of the others.
+ * <p>
+ * Reads run concurrently under a read lock, and writes take the write lock. A rebuild reads the table into a
+ * new index without the lock and swaps it in at the end, so searches keep being served meanwhile.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Bounds the work done for very short prefixes such as "a"
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final BookRepository bookRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    // Off for the command-line import, which exits without serving searches; the server rebuilds on start
+    @Value("${book-api.search.enabled:true}")
+    private boolean enabled = true;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Writes made while a rebuild reads the table, replayed onto the new index; null when not rebuilding
+    private List<Consumer<Index>> missedByRebuild;
+
+    // The terms of a book with their frequencies, to check which combination of classes a book falls in
+    private record Document(BookResponse book, Term[] terms, int[] frequencies, int length) {
+    }
+
+    private record Hit(long id, int ordinal, double score) {
+    }
+
+    private static final class Term {
+        private final String text;
+        // Identifies the term among a book's terms
+        private final int number;
+        private int documentCount;
+        // Impact classes: the books with one frequency of the term and one length, ordered by book id
+        private int classCount;
+        private int[] frequencies = new int[1];
+        private int[] lengths = new int[1];
+        private long[][] ids = new long[1][];
+        private int[][] ordinals = new int[1][];
+        private int[] sizes = new int[1];
+
+        private Term(String text, int number) {
+            this.text = text;
+            this.number = number;
+        }
+
+        private int classOf(int frequency, int length) {
+            for (int c = 0; c < classCount; c++) {
+                if (frequencies[c] == frequency && lengths[c] == length) {
+                    return c;
+                }
+            }
+            return -1;
+        }
+
+        private void add(long id, int ordinal, int frequency, int length) {
+            int c = classOf(frequency, length);
+            if (c < 0) {
+                if (classCount == frequencies.length) {
+                    int capacity = classCount * 2;
+                    frequencies = Arrays.copyOf(frequencies, capacity);
+                    lengths = Arrays.copyOf(lengths, capacity);
+                    ids = Arrays.copyOf(ids, capacity);
+                    ordinals = Arrays.copyOf(ordinals, capacity);
+                    sizes = Arrays.copyOf(sizes, capacity);
+                }
+                c = classCount++;
+                frequencies[c] = frequency;
+                lengths[c] = length;
+                ids[c] = new long[4];
+                ordinals[c] = new int[4];
+                sizes[c] = 0;
+            }
+            int size = sizes[c];
+            if (size == ids[c].length) {
+                ids[c] = Arrays.copyOf(ids[c], size + (size >> 1) + 1);
+                ordinals[c] = Arrays.copyOf(ordinals[c], ids[c].length);
+            }
+            // Books usually arrive in id order, which appends
+            int position = -Arrays.binarySearch(ids[c], 0, size, id) - 1;
+            System.arraycopy(ids[c], position, ids[c], position + 1, size - position);
+            System.arraycopy(ordinals[c], position, ordinals[c], position + 1, size - position);
+            ids[c][position] = id;
+            ordinals[c][position] = ordinal;
+            sizes[c]++;
+            documentCount++;
+        }
+
+        // Returns whether the term is left without books
+        private boolean remove(long id, int frequency, int length) {
+            int c = classOf(frequency, length);
+            int size = sizes[c];
+            int position = Arrays.binarySearch(ids[c], 0, size, id);
+            System.arraycopy(ids[c], position + 1, ids[c], position, size - position - 1);
+            System.arraycopy(ordinals[c], position + 1, ordinals[c], position, size - position - 1);
+            if (--sizes[c] == 0) {
+                classCount--;
+                frequencies[c] = frequencies[classCount];
+                lengths[c] = lengths[classCount];
+                ids[c] = ids[classCount];
+                ordinals[c] = ordinals[classCount];
+                sizes[c] = sizes[classCount];
+                ids[classCount] = null;
+                ordinals[classCount] = null;
+            }
+            return --documentCount == 0;
+        }
+    }
+
+    private static final class Index {
+        // Sorted so prefixes are a range scan
+        private final NavigableMap<String, Term> terms = new TreeMap<>();
+        // Books are numbered densely so postings can point at them; numbers of removed books are reused
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private Document[] documents = new Document[1024];
+        private int[] freeOrdinals = new int[16];
+        private int freeCount;
+        private int ordinalCount;
+        private int termCount;
+        private long totalLength;
+
+        private Document document(Long id) {
+            Integer ordinal = ordinals.get(id);
+            return ordinal == null ? null : documents[ordinal];
+        }
+
+        private void add(BookResponse book) {
+            List<String> tokens = tokenize(book.getTitle());
+            tokens.addAll(tokenize(book.getAuthor()));
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            int ordinal;
+            if (freeCount > 0) {
+                ordinal = freeOrdinals[--freeCount];
+            } else {
+                ordinal = ordinalCount++;
+                if (ordinal == documents.length) {
+                    documents = Arrays.copyOf(documents, ordinal * 2);
+                }
+            }
+            Term[] bookTerms = new Term[frequencies.size()];
+            int[] bookFrequencies = new int[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Term term = terms.computeIfAbsent(entry.getKey(), text -> new Term(text, termCount++));
+                term.add(book.getId(), ordinal, entry.getValue(), tokens.size());
+                bookTerms[i] = term;
+                bookFrequencies[i++] = entry.getValue();
+            }
+            documents[ordinal] = new Document(book, bookTerms, bookFrequencies, tokens.size());
+            ordinals.put(book.getId(), ordinal);
+            totalLength += tokens.size();
+        }
+
+        private void remove(Long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            Document document = documents[ordinal];
+            for (int i = 0; i < document.terms().length; i++) {
+                Term term = document.terms()[i];
+                if (term.remove(id, document.frequencies()[i], document.length())) {
+                    terms.remove(term.text);
+                }
+            }
+            totalLength -= document.length();
+            documents[ordinal] = null;
+            if (freeCount == freeOrdinals.length) {
+                freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+            }
+            freeOrdinals[freeCount++] = ordinal;
+        }
+    }
+
+    /**
+     * Rebuild the index from the database once the application has started. Searches and writes are not
+     * blocked while the table is read; writes made meanwhile are applied to the new index before it is used.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (missedByRebuild != null) {
+                throw new IllegalStateException("The search index is already being rebuilt");
+            }
+            missedByRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Index rebuilt = new Index();
+        boolean read = false;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                try (Stream<Book> books = bookRepository.streamAll()) {
+                    for (Book book : (Iterable<Book>) books::iterator) {
+                        rebuilt.add(BookMapper.toResponse(book));
+                        // Detach so the persistence context does not grow with the table
+                        entityManager.detach(book);
+                    }
+                }
+            });
+            read = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (read) {
+                    // A write that committed while the table was read may be missing from the scan or older in
+                    // it; replaying it is harmless when the scan already saw it
+                    missedByRebuild.forEach(write -> write.accept(rebuilt));
+                    index = rebuilt;
+                }
+                missedByRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Search index built with {} books and {} terms", rebuilt.ordinals.size(), rebuilt.terms.size());
+    }
+
+    /**
+     * Add a book to the index, replacing any previous version of it.
+     * @param book the book
+     */
+    public void index(BookResponse book) {
+        if (!enabled) {
+            return;
+        }
+        write(target -> {
+            target.remove(book.getId());
+            target.add(book);
+        });
+    }
+
+    /**
+     * Replace an indexed book with a changed copy, for updates that did not read the whole book.
+     * Unknown ids are ignored.
+     * @param id the book id
+     * @param change builds the new version of the book from the indexed one
+     */
+    public void update(Long id, UnaryOperator<BookResponse> change) {
+        if (!enabled) {
+            return;
+        }
+        write(target -> {
+            Document document = target.document(id);
+            if (document != null) {
+                target.remove(id);
+                target.add(change.apply(document.book()));
+            }
+        });
+    }
+
+    /**
+     * Remove a book from the index. Unknown ids are ignored.
+     * @param id the book id
+     */
+    public void remove(Long id) {
+        write(target -> target.remove(id));
+    }
+
+    // Applied to the live index, and recorded for the new one while a rebuild is reading the table
+    private void write(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (missedByRebuild != null) {
+                missedByRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search titles and authors, best matches first. The total is exact when the search had to read every
+     * matching book; when it stopped early, it is the number of books matching the most common query term.
+     * @param query free text; the last term is also matched as a prefix
+     * @param pageable the requested page; its sort is ignored in favour of relevance
+     * @return a page of matching books
+     */
+    public Page<BookResponse> search(String query, Pageable pageable) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        lock.readLock().lock();
+        try {
+            Search search = new Search(index, terms, pageable.getOffset() + pageable.getPageSize());
+            List<Hit> hits = search.run();
+            List<BookResponse> content = hits.stream()
+                    .skip(pageable.getOffset())
+                    .map(hit -> index.documents[hit.ordinal()].book())
+                    .toList();
+            return new PageImpl<>(content, pageable, search.total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed books
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static double impact(double idf, int frequency, int length, double averageLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    // First position from which ids[position] >= id, searching forward from a known lower position
+    private static int gallop(long[] ids, int from, int size, long id) {
+        int step = 1;
+        int high = from;
+        while (high < size && ids[high] < id) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        int position = Arrays.binarySearch(ids, from, Math.min(high, size), id);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    // One impact class of a term matching a query term, which gives all its books the same share of the score
+    private record Run(int group, Term term, int termClass, double impact) {
+        private long[] ids() {
+            return term.ids[termClass];
+        }
+
+        private int size() {
+            return term.sizes[termClass];
+        }
+    }
+
+    // For one length, a run per query term or none; successors only move positions from last on, so the
+    // enumeration reaches each combination once
+    private record Combination(int length, int[] choice, int last, double score) {
+    }
+
+    /**
+     * One query: a group of terms per query term, exact for all but the last, whose group holds its most
+     * frequent completions. A book scores the sum over groups of its best impact in each.
+     */
+    private static final class Search {
+        // Best hit first; equal scores fall back to id for a stable order
+        private static final Comparator<Hit> RANKING =
+                Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+
+        private final Index index;
+        private final long wanted;
+        private final double averageLength;
+        // Per group: the term numbers, sorted, and their idfs
+        private final int[][] numbers;
+        private final double[][] idfs;
+        // Per length and group, the runs of that length, best first
+        private final Map<Integer, Run[][]> runsByLength = new HashMap<>();
+        private final PriorityQueue<Hit> worstFirst = new PriorityQueue<>(RANKING.reversed());
+        private long total;
+        private long found;
+
+        private Search(Index index, List<String> queryTerms, long wanted) {
+            this.index = index;
+            this.wanted = wanted;
+            int documentCount = index.ordinals.size();
+            averageLength = (double) index.totalLength / Math.max(documentCount, 1);
+            int groups = queryTerms.size();
+            numbers = new int[groups][];
+            idfs = new double[groups][];
+            Map<Integer, List<List<Run>>> runs = new HashMap<>();
+            for (int g = 0; g < groups; g++) {
+                List<Term> terms = g == groups - 1 ? completions(queryTerms.get(g)) : exact(queryTerms.get(g));
+                terms.sort(Comparator.comparingInt(term -> term.number));
+                numbers[g] = new int[terms.size()];
+                idfs[g] = new double[terms.size()];
+                for (int i = 0; i < terms.size(); i++) {
+                    Term term = terms.get(i);
+                    numbers[g][i] = term.number;
+                    idfs[g][i] = Math.log(1 + (documentCount - term.documentCount + 0.5) / (term.documentCount + 0.5));
+                    total = Math.max(total, term.documentCount);
+                    for (int c = 0; c < term.classCount; c++) {
+                        List<List<Run>> byGroup = runs.computeIfAbsent(term.lengths[c], length -> {
+                            List<List<Run>> empty = new ArrayList<>();
+                            for (int e = 0; e < groups; e++) {
+                                empty.add(new ArrayList<>());
+                            }
+                            return empty;
+                        });
+                        byGroup.get(g).add(new Run(g, term, c,
+                                impact(idfs[g][i], term.frequencies[c], term.lengths[c], averageLength)));
+                    }
+                }
+            }
+            runs.forEach((length, byGroup) -> {
+                Run[][] sorted = new Run[groups][];
+                for (int g = 0; g < groups; g++) {
+                    sorted[g] = byGroup.get(g).toArray(new Run[0]);
+                    Arrays.sort(sorted[g], Comparator.comparingDouble(Run::impact).reversed());
+                }
+                runsByLength.put(length, sorted);
+            });
+        }
+
+        private List<Term> exact(String text) {
+            Term term = index.terms.get(text);
+            return term == null ? new ArrayList<>() : new ArrayList<>(List.of(term));
+        }
+
+        private List<Term> completions(String prefix) {
+            // Rarest first, so the head is the one to drop; equal counts keep the alphabetically first
+            PriorityQueue<Term> mostFrequent = new PriorityQueue<>(Comparator.<Term>comparingInt(term -> term.documentCount)
+                    .thenComparing(term -> term.text, Comparator.reverseOrder()));
+            for (Term term : index.terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                mostFrequent.add(term);
+                if (mostFrequent.size() > MAX_PREFIX_EXPANSIONS) {
+                    mostFrequent.poll();
+                }
+            }
+            return new ArrayList<>(mostFrequent);
+        }
+
+        // Summed in group order, so a book scores exactly the score of its combination
+        private Combination combination(int length, int[] choice, int last) {
+            Run[][] runs = runsByLength.get(length);
+            double score = 0;
+            for (int g = 0; g < choice.length; g++) {
+                if (choice[g] < runs[g].length) {
+                    score += runs[g][choice[g]].impact();
+                }
+            }
+            return new Combination(length, choice, last, score);
+        }
+
+        private List<Hit> run() {
+            PriorityQueue<Combination> next = new PriorityQueue<>(
+                    Comparator.comparingDouble(Combination::score).reversed());
+            runsByLength.keySet().forEach(length -> next.add(combination(length, new int[numbers.length], 0)));
+            while (!next.isEmpty()) {
+                Combination combination = next.peek();
+                if (worstFirst.size() == wanted && combination.score() < worstFirst.peek().score()) {
+                    break;
+                }
+                next.poll();
+                Run[][] runs = runsByLength.get(combination.length());
+                int[] choice = combination.choice();
+                for (int g = combination.last(); g < choice.length; g++) {
+                    if (choice[g] < runs[g].length) {
+                        int[] successor = choice.clone();
+                        successor[g]++;
+                        next.add(combination(combination.length(), successor, g));
+                    }
+                }
+                collect(combination, runs);
+            }
+            if (next.isEmpty()) {
+                total = found;
+            } else {
+                total = Math.max(total, found);
+            }
+            List<Hit> hits = new ArrayList<>(worstFirst);
+            hits.sort(RANKING);
+            return hits;
+        }
+
+        // Adds the books that fall in exactly this combination, in id order, until no more can make the top hits
+        private void collect(Combination combination, Run[][] runs) {
+            List<Run> chosen = new ArrayList<>();
+            for (int g = 0; g < runs.length; g++) {
+                if (combination.choice()[g] < runs[g].length) {
+                    chosen.add(runs[g][combination.choice()[g]]);
+                }
+            }
+            if (chosen.isEmpty()) {
+                return;
+            }
+            chosen.sort(Comparator.comparingInt(Run::size));
+            Run driver = chosen.get(0);
+            long[] driverIds = driver.ids();
+            int[] positions = new int[chosen.size()];
+            double score = combination.score();
+            candidates:
+            for (int p = 0; p < driver.size(); p++) {
+                long id = driverIds[p];
+                if (worstFirst.size() == wanted) {
+                    Hit worst = worstFirst.peek();
+                    if (score < worst.score() || score == worst.score() && id > worst.id()) {
+                        return;
+                    }
+                }
+                for (int r = 1; r < chosen.size(); r++) {
+                    Run other = chosen.get(r);
+                    positions[r] = gallop(other.ids(), positions[r], other.size(), id);
+                    if (positions[r] == other.size()) {
+                        return;
+                    }
+                    if (other.ids()[positions[r]] != id) {
+                        continue candidates;
+                    }
+                }
+                int ordinal = driver.term().ordinals[driver.termClass()][p];
+                if (fallsIn(index.documents[ordinal], combination, runs)) {
+                    found++;
+                    worstFirst.add(new Hit(id, ordinal, score));
+                    if (worstFirst.size() > wanted) {
+                        worstFirst.poll();
+                    }
+                }
+            }
+        }
+
+        // Whether the book's best term in every group is the chosen one, so no other combination counts it;
+        // among equal impacts the lowest term number is the book's best
+        private boolean fallsIn(Document document, Combination combination, Run[][] runs) {
+            for (int g = 0; g < numbers.length; g++) {
+                double best = 0;
+                int bestNumber = -1;
+                for (int i = 0; i < document.terms().length; i++) {
+                    int match = Arrays.binarySearch(numbers[g], document.terms()[i].number);
+                    if (match >= 0) {
+                        double impact = impact(idfs[g][match], document.frequencies()[i], document.length(),
+                                averageLength);
+                        if (impact > best || impact == best && document.terms()[i].number < bestNumber) {
+                            best = impact;
+                            bestNumber = document.terms()[i].number;
+                        }
+                    }
+                }
+                int choice = combination.choice()[g];
+                if (choice == runs[g].length ? bestNumber >= 0 : runs[g][choice].term().number != bestNumber) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
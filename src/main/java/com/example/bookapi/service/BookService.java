@@ -1,11 +1,16 @@
 package com.example.bookapi.service;
 
+import com.example.bookapi.dto.BookCursor;
+import com.example.bookapi.dto.BookCursorPageResponse;
+import com.example.bookapi.dto.BookFilter;
+import com.example.bookapi.dto.BookPatchRequest;
 import com.example.bookapi.dto.BookRequest;
 import com.example.bookapi.dto.BookResponse;
 import com.example.bookapi.dto.BookPageResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service interface for book-related business logic.
@@ -17,6 +22,12 @@ public interface BookService {
      */
     List<BookResponse> findAll();
 
+    /**
+     * Stream all books to the given consumer one at a time, without holding the catalog in memory.
+     * @param consumer receives each book as it is read
+     */
+    void exportAll(Consumer<BookResponse> consumer);
+
     /**
      * Get books with pagination.
      * @param pageable pagination parameters
@@ -24,6 +35,23 @@ public interface BookService {
      */
     BookPageResponse findAllPaginated(Pageable pageable);
 
+    /**
+     * Get books matching the filter with pagination.
+     * @param filter the filter criteria
+     * @param pageable pagination parameters
+     * @return paginated book response
+     */
+    BookPageResponse findAllFiltered(BookFilter filter, Pageable pageable);
+
+    /**
+     * Get books matching the filter with keyset (cursor) pagination.
+     * @param filter the filter criteria; must be the same for every page of a walk
+     * @param cursor the position to continue from
+     * @param size the page size
+     * @return cursor paginated book response
+     */
+    BookCursorPageResponse findAllByCursor(BookFilter filter, BookCursor cursor, int size);
+
     /**
      * Get a book by its ID.
      * @param id the book ID
@@ -32,23 +60,55 @@ public interface BookService {
     BookResponse findById(Long id);
 
     /**
-     * Create a new book.
+     * Create a new book. Like every write here, it is logged in the change log in the same transaction.
      * @param request the book request DTO
      * @return the created book
      */
     BookResponse create(BookRequest request);
 
     /**
-     * Update an existing book.
+     * Create many books at once. Every request is validated first; if any fails, nothing is stored.
+     * Valid batches are inserted in one transaction as chunked JDBC batches.
+     * @param requests the book request DTOs
+     * @return the created books, in request order
+     * @throws com.example.bookapi.exception.BookBatchValidationException if any request is invalid
+     */
+    List<BookResponse> createAll(List<BookRequest> requests);
+
+    /**
+     * Replace every field of an existing book with a single conditional UPDATE. Fails rather than overwrite
+     * a change made since the expected version, or since the current version was read when there is none.
      * @param id the book ID
      * @param request the book request DTO
+     * @param expectedVersion the version the client last saw, or null to update whatever is current
      * @return the updated book
+     * @throws com.example.bookapi.exception.BookVersionMismatchException if the book has another version
      */
-    BookResponse update(Long id, BookRequest request);
+    BookResponse update(Long id, BookRequest request, Long expectedVersion);
 
     /**
-     * Delete a book by its ID.
+     * Change some fields of a book with a single UPDATE, without reading it.
      * @param id the book ID
+     * @param request the fields to change; null fields are kept
+     * @param expectedVersion the version the client last saw
+     * @return the new version of the book
+     * @throws com.example.bookapi.exception.BookVersionMismatchException if the book has another version
+     */
+    long patch(Long id, BookPatchRequest request, long expectedVersion);
+
+    /**
+     * Delete a book by its ID with a single DELETE.
+     * @param id the book ID
+     * @param expectedVersion the version the client last saw, or null to delete whatever is current
+     * @throws com.example.bookapi.exception.BookVersionMismatchException if the book has another version
+     */
+    void delete(Long id, Long expectedVersion);
+
+    /**
+     * Full-text search over titles and authors, ranked by relevance.
+     * @param query free text; the last term also matches as a prefix
+     * @param pageable pagination parameters
+     * @return paginated book response, best matches first
      */
-    void delete(Long id);
+    BookPageResponse search(String query, Pageable pageable);
 } 
\ No newline at end of file
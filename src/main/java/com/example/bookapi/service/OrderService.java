@@ -0,0 +1,28 @@
+package com.example.bookapi.service;
+
+import com.example.bookapi.dto.OrderRequest;
+import com.example.bookapi.dto.OrderResponse;
+
+/**
+ * Service interface for order writes.
+ * Every write also maintains the user's materialized order count and total in the same transaction.
+ */
+public interface OrderService {
+    /**
+     * Place a new order for a user.
+     * @param request the order request DTO
+     * @return the created order
+     */
+    OrderResponse placeOrder(OrderRequest request);
+
+    /**
+     * Cancel (delete) an order.
+     * @param id the order ID
+     */
+    void cancelOrder(Long id);
+
+    /**
+     * Recompute all users' materialized order counts and totals from the orders table.
+     */
+    void rebuildOrderTotals();
+}
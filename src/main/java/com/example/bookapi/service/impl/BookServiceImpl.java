@@ -1,18 +1,46 @@
 package com.example.bookapi.service.impl;
 
+import com.example.bookapi.changes.BookChangeLog;
+import com.example.bookapi.config.CacheConfig;
 import com.example.bookapi.dto.*;
+import com.example.bookapi.etag.CatalogGeneration;
+import com.example.bookapi.exception.BookBatchValidationException;
+import com.example.bookapi.exception.BookNotFoundException;
+import com.example.bookapi.exception.BookVersionMismatchException;
+import com.example.bookapi.exception.InvalidRequestException;
 import com.example.bookapi.model.Book;
+import com.example.bookapi.model.BookChange;
 import com.example.bookapi.repository.BookRepository;
+import com.example.bookapi.repository.BookSpecifications;
+import com.example.bookapi.search.BookIdFilter;
+import com.example.bookapi.search.BookSearchIndex;
 import com.example.bookapi.service.BookService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of BookService for managing books.
@@ -20,13 +48,24 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "book.service", description = "BookService method latency")
 public class BookServiceImpl implements BookService {
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final BookSearchIndex searchIndex;
+    private final BookIdFilter bookIdFilter;
+    private final CatalogGeneration catalogGeneration;
+    private final BookChangeLog changeLog;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public List<BookResponse> findAll() {
         return bookRepository.findAll().stream()
                 .map(BookMapper::toResponse)
@@ -37,13 +76,43 @@ public class BookServiceImpl implements BookService {
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<BookResponse> consumer) {
+        long count = 0;
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            for (Book book : (Iterable<Book>) books::iterator) {
+                consumer.accept(BookMapper.toResponse(book));
+                // Detach so the persistence context does not grow with the table
+                entityManager.detach(book);
+                count++;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.atDebug().addKeyValue("count", count).log("Exported books");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
     public BookPageResponse findAllPaginated(Pageable pageable) {
         Page<Book> bookPage = bookRepository.findAll(pageable);
         Page<BookResponse> responsePage = bookPage.map(BookMapper::toResponse);
-        log.debug("Retrieved {} books from page {} with size {}", 
-                responsePage.getNumberOfElements(), 
-                responsePage.getNumber(), 
-                responsePage.getSize());
+        logPage("Retrieved books page", responsePage);
+        return BookPageResponse.fromPage(responsePage);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookPageResponse findAllFiltered(BookFilter filter, Pageable pageable) {
+        Page<BookResponse> responsePage = bookRepository.findAll(BookSpecifications.matching(filter), pageable)
+                .map(BookMapper::toResponse);
+        logPage("Retrieved filtered books page", responsePage);
         return BookPageResponse.fromPage(responsePage);
     }
 
@@ -51,9 +120,44 @@ public class BookServiceImpl implements BookService {
      * {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
+    public BookCursorPageResponse findAllByCursor(BookFilter filter, BookCursor cursor, int size) {
+        if (size < 1) {
+            throw new InvalidRequestException("Page size must be at least 1");
+        }
+        Window<Book> window = bookRepository.findBy(BookSpecifications.matching(filter),
+                query -> query.sortBy(cursor.toSort()).limit(size).scroll(cursor.toScrollPosition()));
+        List<BookResponse> content = window.map(BookMapper::toResponse).getContent();
+        String nextCursor = window.hasNext()
+                ? cursor.after(content.get(content.size() - 1)).encode()
+                : null;
+        if (log.isDebugEnabled()) {
+            log.atDebug()
+                    .addKeyValue("count", content.size())
+                    .addKeyValue("size", size)
+                    .log("Retrieved books after cursor");
+        }
+        return BookCursorPageResponse.builder()
+                .content(content)
+                .pageSize(size)
+                .hasNext(window.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    // sync: a load holds the entry's lock, so an eviction racing with it removes what it loaded
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id", sync = true)
+    // Not read-only: a miss right after an update must not refill the cache from a lagging replica
     public BookResponse findById(Long id) {
+        if (!bookIdFilter.mightExist(id)) {
+            throw new BookNotFoundException(id);
+        }
         Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Book not found with id: " + id));
+                .orElseThrow(() -> new BookNotFoundException(id));
         return BookMapper.toResponse(book);
     }
 
@@ -61,38 +165,245 @@ public class BookServiceImpl implements BookService {
      * {@inheritDoc}
      */
     @Override
+    @CachePut(cacheNames = CacheConfig.BOOKS_CACHE, key = "#result.id")
+    // With its change log entry
+    @Transactional
     public BookResponse create(BookRequest request) {
         Book book = BookMapper.toEntity(request);
         Book saved = bookRepository.save(book);
-        log.info("Created book: {} by {} (id={})", saved.getTitle(), saved.getAuthor(), saved.getId());
-        return BookMapper.toResponse(saved);
+        changeLog.record(change(BookChange.Type.CREATED, saved));
+        if (log.isInfoEnabled()) {
+            log.atInfo()
+                    .addKeyValue("bookId", saved.getId())
+                    .addKeyValue("title", saved.getTitle())
+                    .addKeyValue("author", saved.getAuthor())
+                    .log("Book created");
+        }
+        BookResponse response = BookMapper.toResponse(saved);
+        afterCatalogChange(() -> searchIndex.index(response));
+        return response;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public BookResponse update(Long id, BookRequest request) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Book not found with id: " + id));
-        book.setTitle(request.getTitle());
-        book.setAuthor(request.getAuthor());
-        book.setPublishedYear(request.getPublishedYear());
-        Book updated = bookRepository.save(book);
-        log.info("Updated book id={}", id);
-        return BookMapper.toResponse(updated);
+    @Transactional
+    public List<BookResponse> createAll(List<BookRequest> requests) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookRequest request = requests.get(i);
+            if (request == null) {
+                errors.put("[" + i + "]", "Book must not be null");
+                continue;
+            }
+            for (ConstraintViolation<BookRequest> violation : validator.validate(request)) {
+                errors.putIfAbsent("[" + i + "]." + violation.getPropertyPath(), violation.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BookBatchValidationException(errors);
+        }
+
+        List<BookResponse> created = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<Book> chunk = requests.subList(from, Math.min(from + batchSize, requests.size())).stream()
+                    .map(BookMapper::toEntity)
+                    .collect(Collectors.toList());
+            bookRepository.saveAll(chunk);
+            chunk.forEach(book -> changeLog.record(change(BookChange.Type.CREATED, book)));
+            // Send the chunk as one JDBC batch, then drop it from the persistence context
+            bookRepository.flush();
+            chunk.forEach(book -> created.add(BookMapper.toResponse(book)));
+            entityManager.clear();
+        }
+        if (log.isInfoEnabled()) {
+            log.atInfo().addKeyValue("count", created.size()).log("Books created in batch");
+        }
+        afterCatalogChange(() -> created.forEach(searchIndex::index));
+        return created;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void delete(Long id) {
-        if (!bookRepository.existsById(id)) {
-            log.warn("Attempted to delete non-existent book id={}", id);
-            throw new NoSuchElementException("Book not found with id: " + id);
+    // Evict rather than put: concurrent updates could otherwise leave the older response cached
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
+    // The UPDATE and its change log entry
+    @Transactional
+    public BookResponse update(Long id, BookRequest request, Long expectedVersion) {
+        if (!bookIdFilter.mightExist(id)) {
+            throw new BookNotFoundException(id);
+        }
+        // Without If-Match the replacement is based on the version current now, which costs a read
+        long version = expectedVersion != null ? expectedVersion : bookRepository.findById(id)
+                .orElseThrow(() -> new BookNotFoundException(id)).getVersion();
+        if (bookRepository.replace(id, version, request.getTitle(), request.getAuthor(),
+                request.getPublishedYear()) == 0) {
+            if (expectedVersion == null) {
+                // Changed or deleted between the read and the UPDATE
+                throw new OptimisticLockingFailureException("Book " + id + " was changed concurrently");
+            }
+            failIfChanged(id, expectedVersion);
+            throw new BookNotFoundException(id);
+        }
+        Book updated = Book.builder()
+                .id(id)
+                .title(request.getTitle())
+                .author(request.getAuthor())
+                .publishedYear(request.getPublishedYear())
+                .version(version + 1)
+                .build();
+        changeLog.record(change(BookChange.Type.REPLACED, updated));
+        if (log.isInfoEnabled()) {
+            log.atInfo().addKeyValue("bookId", id).log("Book updated");
+        }
+        BookResponse response = BookMapper.toResponse(updated);
+        afterCatalogChange(() -> searchIndex.index(response));
+        return response;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
+    // The UPDATE and its change log entry
+    @Transactional
+    public long patch(Long id, BookPatchRequest request, long expectedVersion) {
+        if (request.isEmpty()) {
+            throw new InvalidRequestException("A patch must set at least one of title, author and publishedYear");
+        }
+        if (!bookIdFilter.mightExist(id)) {
+            throw new BookNotFoundException(id);
+        }
+        if (bookRepository.patch(id, expectedVersion, request.getTitle(), request.getAuthor(),
+                request.getPublishedYear()) == 0) {
+            failIfChanged(id, expectedVersion);
+            throw new BookNotFoundException(id);
+        }
+        long version = expectedVersion + 1;
+        // Only the patched fields, like the patch itself
+        changeLog.record(BookChange.builder()
+                .bookId(id)
+                .type(BookChange.Type.UPDATED)
+                .title(request.getTitle())
+                .author(request.getAuthor())
+                .publishedYear(request.getPublishedYear())
+                .version(version)
+                .build());
+        if (log.isInfoEnabled()) {
+            log.atInfo().addKeyValue("bookId", id).addKeyValue("version", version).log("Book patched");
+        }
+        afterCatalogChange(() -> searchIndex.update(id, book -> BookMapper.applyPatch(book, request, version)));
+        return version;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
+    // The DELETE and its change log entry
+    @Transactional
+    public void delete(Long id, Long expectedVersion) {
+        if (bookIdFilter.mightExist(id)) {
+            int deleted = expectedVersion == null
+                    ? bookRepository.deleteBook(id)
+                    : bookRepository.deleteBook(id, expectedVersion);
+            if (deleted > 0) {
+                changeLog.record(BookChange.builder()
+                        .bookId(id)
+                        .type(BookChange.Type.DELETED)
+                        .version(expectedVersion)
+                        .build());
+                if (log.isInfoEnabled()) {
+                    log.atInfo().addKeyValue("bookId", id).log("Book deleted");
+                }
+                afterCatalogChange(() -> {
+                    searchIndex.remove(id);
+                    // Only once committed: a cleared bit answers 404 without asking the database
+                    bookIdFilter.remove(id);
+                });
+                return;
+            }
+            failIfChanged(id, expectedVersion);
+        }
+        if (log.isWarnEnabled()) {
+            log.atWarn().addKeyValue("bookId", id).log("Attempted to delete non-existent book");
+        }
+        throw new BookNotFoundException(id);
+    }
+
+    private static BookChange change(BookChange.Type type, Book book) {
+        return BookChange.builder()
+                .bookId(book.getId())
+                .type(type)
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .publishedYear(book.getPublishedYear())
+                .version(book.getVersion())
+                .build();
+    }
+
+    /**
+     * After a conditional statement changed nothing, tell a version conflict from a missing book.
+     * Only runs on failure, so successful writes never read the book.
+     */
+    private void failIfChanged(Long id, Long expectedVersion) {
+        if (expectedVersion != null && bookRepository.existsById(id)) {
+            throw new BookVersionMismatchException(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BookPageResponse search(String query, Pageable pageable) {
+        return BookPageResponse.fromPage(searchIndex.search(query, pageable));
+    }
+
+    // Guarded: boxing the int arguments would allocate even with DEBUG disabled
+    private static void logPage(String message, Page<BookResponse> page) {
+        if (log.isDebugEnabled()) {
+            log.atDebug()
+                    .addKeyValue("count", page.getNumberOfElements())
+                    .addKeyValue("page", page.getNumber())
+                    .addKeyValue("size", page.getSize())
+                    .log(message);
+        }
+    }
+
+    /**
+     * Once the change commits, bring the in-memory views up to date and then count it, so a catalog
+     * ETag is never handed out for a generation whose change the search index does not show yet.
+     */
+    private void afterCatalogChange(Runnable viewUpdate) {
+        afterCommit(() -> {
+            try {
+                viewUpdate.run();
+            } finally {
+                catalogGeneration.changed();
+            }
+        });
+    }
+
+    /**
+     * Run the action once the surrounding transaction commits, or right away if there is none,
+     * so in-memory views never see writes that were rolled back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
-        bookRepository.deleteById(id);
-        log.info("Deleted book id={}", id);
     }
 } 
\ No newline at end of file
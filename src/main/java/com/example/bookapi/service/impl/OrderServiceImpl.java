@@ -0,0 +1,80 @@
+package com.example.bookapi.service.impl;
+
+import com.example.bookapi.dto.OrderRequest;
+import com.example.bookapi.dto.OrderResponse;
+import com.example.bookapi.model.Order;
+import com.example.bookapi.model.User;
+import com.example.bookapi.repository.OrderRepository;
+import com.example.bookapi.repository.UserRepository;
+import com.example.bookapi.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of OrderService.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderServiceImpl implements OrderService {
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public OrderResponse placeOrder(OrderRequest request) {
+        User user = userRepository.findById(request.getUserId())
+                .orElseThrow(() -> new NoSuchElementException("User not found with id: " + request.getUserId()));
+        Order saved = orderRepository.save(Order.builder().amount(request.getAmount()).user(user).build());
+        userRepository.adjustOrderTotals(user.getId(), 1, saved.getAmount());
+        if (log.isInfoEnabled()) {
+            log.atInfo().addKeyValue("orderId", saved.getId()).addKeyValue("userId", user.getId()).log("Order placed");
+        }
+        return toResponse(saved, user.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void cancelOrder(Long id) {
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Order not found with id: " + id));
+        Long userId = order.getUser().getId();
+        orderRepository.delete(order);
+        userRepository.adjustOrderTotals(userId, -1, -order.getAmount());
+        if (log.isInfoEnabled()) {
+            log.atInfo().addKeyValue("orderId", id).addKeyValue("userId", userId).log("Order cancelled");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Also runs at startup, since seed data is inserted without going through this service.
+     */
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOrderTotals() {
+        int users = userRepository.rebuildOrderTotals();
+        log.info("Rebuilt order totals for {} users", users);
+    }
+
+    private static OrderResponse toResponse(Order order, Long userId) {
+        return OrderResponse.builder()
+                .id(order.getId())
+                .userId(userId)
+                .amount(order.getAmount())
+                .build();
+    }
+}
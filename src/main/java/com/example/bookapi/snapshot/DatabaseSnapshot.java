@@ -0,0 +1,333 @@
+package com.example.bookapi.snapshot;
+
+import com.example.bookapi.changes.BookChangeLog;
+import com.example.bookapi.dto.SnapshotResponse;
+import com.example.bookapi.model.Book;
+import com.example.bookapi.search.BookIdFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary snapshot of the book, app_user and book_order tables.
+ * Dumps stream rows from JDBC into a gzipped {@link DataOutputStream}; restores replay them with
+ * large JDBC batches, which is much faster than replaying SQL scripts or going through JPA.
+ * <p>
+ * Layout: magic, version, then one section per table in a fixed order. Every row is preceded by
+ * a {@code true} marker and a section ends with {@code false}, so dumps never count rows up front.
+ * Version 2 added the book's optimistic-locking version; version 1 snapshots still restore, with every book
+ * at version 0.
+ */
+@Slf4j
+@Component
+public class DatabaseSnapshot implements ApplicationRunner {
+    private static final int MAGIC = 0x424B5350; // "BKSP"
+    private static final int VERSION = 2;
+    // The last format without book versions
+    private static final int VERSION_WITHOUT_BOOK_VERSIONS = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookIdFilter bookIdFilter;
+    private final BookChangeLog changeLog;
+    private final Path path;
+    private final boolean restoreOnStartup;
+
+    public DatabaseSnapshot(JdbcTemplate jdbcTemplate, BookIdFilter bookIdFilter, BookChangeLog changeLog,
+                            @Value("${book-api.snapshot.path:./data/bookapi.snapshot}") Path path,
+                            @Value("${book-api.snapshot.restore-on-startup:false}") boolean restoreOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookIdFilter = bookIdFilter;
+        this.changeLog = changeLog;
+        this.path = path;
+        this.restoreOnStartup = restoreOnStartup;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs, DataOutput out) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface RowReader {
+        void read(DataInput in, PreparedStatement ps) throws SQLException, IOException;
+    }
+
+    /**
+     * Restore the configured snapshot before the application reports ready,
+     * so the search index and order totals are rebuilt from the restored rows.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!restoreOnStartup) {
+            return;
+        }
+        if (!Files.exists(path)) {
+            log.info("No snapshot at {}, starting from the current database", path);
+            return;
+        }
+        SnapshotResponse restored = restore(path);
+        log.info("Restored {} books, {} users and {} orders from {} in {} ms",
+                restored.getBooks(), restored.getUsers(), restored.getOrders(), path, restored.getMillis());
+    }
+
+    /**
+     * Write a snapshot to the configured path.
+     * @return what was written
+     */
+    public SnapshotResponse dump() throws IOException {
+        return dump(path);
+    }
+
+    /**
+     * Write a snapshot of all three tables to the given file.
+     * The tables are read in one repeatable-read transaction so the snapshot is consistent,
+     * and the file is written beside the target and moved into place when complete.
+     * @param target the snapshot file
+     * @return what was written
+     */
+    public SnapshotResponse dump(Path target) throws IOException {
+        long start = System.nanoTime();
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        long[] counts;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FastGzipOutputStream(Files.newOutputStream(temp)), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            counts = inTransaction(Connection.TRANSACTION_REPEATABLE_READ, con -> new long[]{
+                    writeTable(con, "SELECT id, title, author, published_year, version FROM book ORDER BY id", out,
+                            (rs, o) -> {
+                                o.writeLong(rs.getLong(1));
+                                writeString(o, rs.getString(2));
+                                writeString(o, rs.getString(3));
+                                writeInteger(o, (Integer) rs.getObject(4));
+                                o.writeLong(rs.getLong(5));
+                            }),
+                    writeTable(con, "SELECT id, username, role, order_count, total_order_amount FROM app_user ORDER BY id", out,
+                            (rs, o) -> {
+                                o.writeLong(rs.getLong(1));
+                                o.writeUTF(rs.getString(2));
+                                o.writeUTF(rs.getString(3));
+                                o.writeLong(rs.getLong(4));
+                                o.writeDouble(rs.getDouble(5));
+                            }),
+                    writeTable(con, "SELECT id, amount, user_id FROM book_order ORDER BY id", out,
+                            (rs, o) -> {
+                                o.writeLong(rs.getLong(1));
+                                o.writeDouble(rs.getDouble(2));
+                                o.writeLong(rs.getLong(3));
+                            })
+            });
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stats(target, counts, start);
+    }
+
+    /**
+     * Replace the contents of all three tables with the given snapshot.
+     * Only safe before the application writes anything: the book sequence is restarted past the
+     * restored ids, but blocks Hibernate has already reserved are not.
+     * Rows are committed every batch to keep the undo log small, so a failed restore leaves the
+     * tables partly loaded and should be retried. The change log starts over from the restored books.
+     * @param source the snapshot file
+     * @return what was restored
+     */
+    public SnapshotResponse restore(Path source) throws IOException {
+        long start = System.nanoTime();
+        long[] counts;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(source), BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a book-api snapshot: " + source);
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != VERSION_WITHOUT_BOOK_VERSIONS) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + source);
+            }
+            boolean bookVersions = version != VERSION_WITHOUT_BOOK_VERSIONS;
+            counts = inTransaction(Connection.TRANSACTION_READ_COMMITTED, con -> {
+                try (Statement statement = con.createStatement()) {
+                    // Rows arrive in table order, not dependency order, and the snapshot was consistent when taken
+                    statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+                    try {
+                        statement.execute("TRUNCATE TABLE book_order");
+                        statement.execute("TRUNCATE TABLE app_user");
+                        statement.execute("TRUNCATE TABLE book");
+                        long[] restored = {
+                                readTable(con, "INSERT INTO book (id, title, author, published_year, version) VALUES (?, ?, ?, ?, ?)", in,
+                                        (i, ps) -> {
+                                            ps.setLong(1, i.readLong());
+                                            ps.setString(2, readString(i));
+                                            ps.setString(3, readString(i));
+                                            ps.setObject(4, readInteger(i), Types.INTEGER);
+                                            ps.setLong(5, bookVersions ? i.readLong() : 0);
+                                        }),
+                                readTable(con, "INSERT INTO app_user (id, username, role, order_count, total_order_amount) VALUES (?, ?, ?, ?, ?)", in,
+                                        (i, ps) -> {
+                                            ps.setLong(1, i.readLong());
+                                            ps.setString(2, i.readUTF());
+                                            ps.setString(3, i.readUTF());
+                                            ps.setLong(4, i.readLong());
+                                            ps.setDouble(5, i.readDouble());
+                                        }),
+                                readTable(con, "INSERT INTO book_order (id, amount, user_id) VALUES (?, ?, ?)", in,
+                                        (i, ps) -> {
+                                            ps.setLong(1, i.readLong());
+                                            ps.setDouble(2, i.readDouble());
+                                            ps.setLong(3, i.readLong());
+                                        })
+                        };
+                        resetIdGenerators(statement);
+                        return restored;
+                    } finally {
+                        statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+                    }
+                }
+            });
+        }
+        // The inserts bypassed JPA, so the filter has not seen the restored ids
+        bookIdFilter.load();
+        // Nor has the change log, whose entries describe the replaced catalog
+        changeLog.rebuild();
+        return stats(source, counts, start);
+    }
+
+    private long[] inTransaction(int isolation, ConnectionCallback<long[]> work) throws IOException {
+        try {
+            return jdbcTemplate.execute((ConnectionCallback<long[]>) con -> {
+                boolean autoCommit = con.getAutoCommit();
+                int previousIsolation = con.getTransactionIsolation();
+                con.setAutoCommit(false);
+                con.setTransactionIsolation(isolation);
+                try {
+                    long[] counts = work.doInConnection(con);
+                    con.commit();
+                    return counts;
+                } catch (SQLException | RuntimeException e) {
+                    con.rollback();
+                    throw e;
+                } finally {
+                    con.setTransactionIsolation(previousIsolation);
+                    con.setAutoCommit(autoCommit);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long writeTable(Connection con, String sql, DataOutputStream out, RowWriter writer) throws SQLException {
+        long rows = 0;
+        try (Statement statement = con.createStatement()) {
+            statement.setFetchSize(BATCH_SIZE);
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    out.writeBoolean(true);
+                    writer.write(rs, out);
+                    rows++;
+                }
+            }
+            out.writeBoolean(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private static long readTable(Connection con, String sql, DataInputStream in, RowReader reader) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            while (in.readBoolean()) {
+                reader.read(in, ps);
+                ps.addBatch();
+                if (++rows % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                    con.commit();
+                }
+            }
+            ps.executeBatch();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Move the id generators past the restored rows. The book sequence is pooled, so Hibernate
+     * treats each value it reads as the top of a block and hands out the ids below it first.
+     */
+    private static void resetIdGenerators(Statement statement) throws SQLException {
+        long maxBookId = maxId(statement, "book");
+        statement.execute("ALTER SEQUENCE book_seq RESTART WITH "
+                + (maxBookId == 0 ? 1 : maxBookId + Book.ID_ALLOCATION_SIZE));
+        statement.execute("ALTER TABLE app_user ALTER COLUMN id RESTART WITH " + (maxId(statement, "app_user") + 1));
+        statement.execute("ALTER TABLE book_order ALTER COLUMN id RESTART WITH " + (maxId(statement, "book_order") + 1));
+    }
+
+    private static long maxId(Statement statement, String table) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInteger(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static SnapshotResponse stats(Path file, long[] counts, long startNanos) throws IOException {
+        return SnapshotResponse.builder()
+                .path(file.toString())
+                .books(counts[0])
+                .users(counts[1])
+                .orders(counts[2])
+                .bytes(Files.size(file))
+                .millis((System.nanoTime() - startNanos) / 1_000_000)
+                .build();
+    }
+
+    /** Gzip at the fastest level; restore time matters more than the last few percent of size. */
+    private static final class FastGzipOutputStream extends GZIPOutputStream {
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
@@ -15,4 +15,8 @@ INSERT INTO book_order (id, amount, user_id) VALUES (7, 5.0, 4);
 INSERT INTO book_order (id, amount, user_id) VALUES (8, 10.0, 4);
 INSERT INTO book_order (id, amount, user_id) VALUES (9, 15.0, 4);
 INSERT INTO book_order (id, amount, user_id) VALUES (10, 20.0, 4);
-INSERT INTO book_order (id, amount, user_id) VALUES (11, 25.0, 4); 
\ No newline at end of file
+INSERT INTO book_order (id, amount, user_id) VALUES (11, 25.0, 4); 
+
+-- Seed rows use explicit ids, so move the identity counters past them
+ALTER TABLE app_user ALTER COLUMN id RESTART WITH 5;
+ALTER TABLE book_order ALTER COLUMN id RESTART WITH 12;
@@ -0,0 +1,109 @@
+package com.example.bookapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares authenticated request throughput for HTTP Basic (BCrypt per request) and bearer tokens (HMAC per request).
+ * Run with {@code mvn test -Pbenchmark -Dtest=AuthModeBenchmarkTest}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=INFO",
+                "book-api.rate-limit.enabled=false"})
+class AuthModeBenchmarkTest {
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmupSeconds", 3));
+    private static final Duration MEASURE = Duration.ofSeconds(Long.getLong("benchmark.seconds", 10));
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void compareBasicAndTokenThroughput() throws Exception {
+        String basic = "Basic " + Base64.getEncoder()
+                .encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+        HttpResponse<String> tokenResponse = client.send(HttpRequest.newBuilder(uri("/auth/token"))
+                .header("Authorization", basic)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, tokenResponse.statusCode());
+        String bearer = "Bearer " + objectMapper.readTree(tokenResponse.body()).get("token").asText();
+
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder(uri("/books"))
+                .header("Authorization", bearer)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"title\":\"Benchmark\",\"author\":\"Bench\",\"publishedYear\":2024}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+        String path = "/books/" + objectMapper.readTree(created.body()).get("id").asLong();
+
+        run(path, basic, WARMUP);
+        double basicRps = run(path, basic, MEASURE);
+        run(path, bearer, WARMUP);
+        double tokenRps = run(path, bearer, MEASURE);
+
+        System.out.printf("GET /books/{id} with %d threads: basic=%.0f req/s, token=%.0f req/s (%.1fx)%n",
+                THREADS, basicRps, tokenRps, tokenRps / basicRps);
+        assertTrue(tokenRps > basicRps, "token auth should outperform HTTP Basic");
+    }
+
+    private double run(String path, String authorization, Duration duration) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    long completed = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        assertEquals(200, response.statusCode());
+                        completed++;
+                    }
+                    return completed;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> worker : workers) {
+                total += worker.get();
+            }
+            return total / (double) duration.toSeconds();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.benchmark.LoadGenerator.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mixed-traffic load test against an embedded server: book CRUD with bearer, Basic and no auth, plus the user reports.
+ * Writes a JSON report per run to {@code target/load-test/}; set {@code loadtest.maxP99Ms} to fail on regressions.
+ * Run with {@code mvn test -Pbenchmark -Dtest=BookApiLoadTest -Dloadtest.rate=200 -Dloadtest.seconds=30}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=INFO",
+                "book-api.rate-limit.enabled=false"})
+class BookApiLoadTest {
+    private static final int RATE = Integer.getInteger("loadtest.rate", 200);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 5));
+    private static final Duration MEASURE = Duration.ofSeconds(Long.getLong("loadtest.seconds", 30));
+    private static final String MAX_P99_MS = System.getProperty("loadtest.maxP99Ms");
+    private static final int SEED_BOOKS = 500;
+    private static final String BOOK_JSON = "{\"title\":\"Load %d\",\"author\":\"Load Author\",\"publishedYear\":2001}";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Long> bookIds = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Long> deletable = new ConcurrentLinkedQueue<>();
+    private String userBasic;
+    private String userBearer;
+    private String adminBearer;
+
+    @Test
+    void mixedTraffic() throws Exception {
+        userBasic = basic("user");
+        userBearer = bearer("user");
+        adminBearer = bearer("admin");
+        seedBooks();
+
+        LoadGenerator generator = new LoadGenerator(client, operations());
+        generator.run(RATE, WARMUP, 1);
+        LoadGenerator.Report report = generator.run(RATE, MEASURE, 2);
+
+        Path file = Path.of("target", "load-test", "load-test-" + System.currentTimeMillis() + ".json");
+        report.write(file);
+        System.out.printf("Target %d req/s for %ds, report: %s%n%s", RATE, MEASURE.toSeconds(), file, report.summary());
+
+        assertEquals(0, report.timeouts(), "requests still outstanding when the run ended");
+        assertEquals(0, report.total().errors(), "unexpected statuses or failed requests");
+        if (MAX_P99_MS != null) {
+            assertTrue(report.total().responseTime().p99() <= Double.parseDouble(MAX_P99_MS),
+                    "p99 " + report.total().responseTime().p99() + "ms exceeds " + MAX_P99_MS + "ms");
+        }
+    }
+
+    private void seedBooks() throws Exception {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < SEED_BOOKS; i++) {
+            batch.append(i == 0 ? "" : ",").append(BOOK_JSON.formatted(i));
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/books/batch"))
+                .header("Authorization", userBearer)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(batch.append("]").toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+        objectMapper.readTree(response.body()).forEach(book -> bookIds.add(book.get("id").asLong()));
+    }
+
+    private List<Operation> operations() {
+        return List.of(
+                new Operation("books.get", 30, 200, r -> get("/books/" + randomId(r), userBearer)),
+                new Operation("books.page", 15, 200,
+                        r -> get("/books?page=" + r.nextInt(3) + "&size=20&sortBy=title", userBearer)),
+                new Operation("books.search", 8, 200, r -> get("/books/search?q=load+" + r.nextInt(SEED_BOOKS), userBearer)),
+                new Operation("books.create", 10, Set.of(201), r -> HttpRequest.newBuilder(uri("/books"))
+                        .header("Authorization", userBearer)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(BOOK_JSON.formatted(r.nextInt())))
+                        .build(), this::rememberCreated),
+                new Operation("books.update", 5, Set.of(200, 404), r -> HttpRequest.newBuilder(uri("/books/" + randomId(r)))
+                        .header("Authorization", userBearer)
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(BOOK_JSON.formatted(r.nextInt())))
+                        .build(), response -> { }),
+                // Only deletes books the run created, so the read mix keeps its data set
+                new Operation("books.delete", 5, Set.of(204, 404), r -> {
+                    Long id = deletable.poll();
+                    return HttpRequest.newBuilder(uri("/books/" + (id != null ? id : -1)))
+                            .header("Authorization", adminBearer)
+                            .DELETE()
+                            .build();
+                }, response -> { }),
+                new Operation("books.get.basic", 2, 200, r -> get("/books/" + randomId(r), userBasic)),
+                new Operation("books.get.anonymous", 5, 401, r -> get("/books/" + randomId(r), null)),
+                new Operation("users.by-order-count", 8, 200, r -> get("/users/by-order-count?min=0&max=10", null)),
+                new Operation("users.more-than-3", 4, 200, r -> get("/users/more-than-3-orders", null)),
+                new Operation("users.no-orders", 4, 200, r -> get("/users/no-orders", null)),
+                new Operation("users.total-amount", 4, 200, r -> get("/users/total-order-amount", null)));
+    }
+
+    private void rememberCreated(HttpResponse<String> response) {
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+            deletable.add(body.get("id").asLong());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long randomId(Random random) {
+        return bookIds.get(random.nextInt(bookIds.size()));
+    }
+
+    private HttpRequest get(String path, String authorization) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).GET();
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder.build();
+    }
+
+    private String basic(String username) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":password").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String bearer(String username) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/auth/token"))
+                .header("Authorization", basic(username))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return "Bearer " + objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
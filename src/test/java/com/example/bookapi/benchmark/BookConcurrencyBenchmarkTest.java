@@ -0,0 +1,128 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookPatchRequest;
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.exception.BookVersionMismatchException;
+import com.example.bookapi.service.BookService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prints conditional write throughput with every thread incrementing one book and with a book per thread.
+ * Each write reads the book and writes it back with the version it read, retrying on a version conflict.
+ * Run with {@code mvn test -Pbenchmark -Dtest=BookConcurrencyBenchmarkTest [-Dbenchmark.threads=8]}.
+ */
+// SQL logging off: it would dominate the measured throughput
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrency-bench",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN"})
+class BookConcurrencyBenchmarkTest {
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+    private static final int INCREMENTS_PER_THREAD = Integer.getInteger("benchmark.increments", 15);
+    private static final int FIRST_YEAR = 1500;
+
+    @Autowired
+    private BookService bookService;
+
+    private interface Write {
+        void apply(BookResponse book);
+    }
+
+    private record Result(int writes, int conflicts, long nanos) {
+        void print(String label) {
+            System.out.printf("%-28s %4d writes in %5d ms (%6.0f writes/s), %4d version conflicts retried%n",
+                    label, writes, nanos / 1_000_000, writes * 1e9 / nanos, conflicts);
+        }
+    }
+
+    private List<Long> createBooks(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(bookService.create(new BookRequest("Contended " + i, "Author", FIRST_YEAR)).getId());
+        }
+        return ids;
+    }
+
+    private Result incrementConcurrently(List<Long> bookPerThread, Write write) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long id = bookPerThread.get(t);
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    while (true) {
+                        try {
+                            write.apply(bookService.findById(id));
+                            break;
+                        } catch (BookVersionMismatchException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Result(THREADS * INCREMENTS_PER_THREAD, conflicts.get(), System.nanoTime() - begin);
+    }
+
+    private void assertNoLostUpdates(long id, int writes) {
+        BookResponse book = bookService.findById(id);
+        assertEquals(FIRST_YEAR + writes, book.getPublishedYear());
+        assertEquals(writes, book.getVersion());
+    }
+
+    @Test
+    void sharedBookVersusBookPerThread() throws Exception {
+        Write patch = book -> bookService.patch(book.getId(),
+                BookPatchRequest.builder().publishedYear(book.getPublishedYear() + 1).build(), book.getVersion());
+        Write put = book -> bookService.update(book.getId(),
+                new BookRequest(book.getTitle(), book.getAuthor(), book.getPublishedYear() + 1), book.getVersion());
+
+        long patchedShared = createBooks(1).get(0);
+        Result patchContended = incrementConcurrently(Collections.nCopies(THREADS, patchedShared), patch);
+        List<Long> patchedOwn = createBooks(THREADS);
+        Result patchUncontended = incrementConcurrently(patchedOwn, patch);
+        long putShared = createBooks(1).get(0);
+        Result putContended = incrementConcurrently(Collections.nCopies(THREADS, putShared), put);
+        List<Long> putOwn = createBooks(THREADS);
+        Result putUncontended = incrementConcurrently(putOwn, put);
+
+        patchContended.print("PATCH, one book");
+        patchUncontended.print("PATCH, book per thread");
+        putContended.print("PUT, one book");
+        putUncontended.print("PUT, book per thread");
+        assertNoLostUpdates(patchedShared, patchContended.writes());
+        assertNoLostUpdates(putShared, putContended.writes());
+        for (long id : patchedOwn) {
+            assertNoLostUpdates(id, INCREMENTS_PER_THREAD);
+        }
+        for (long id : putOwn) {
+            assertNoLostUpdates(id, INCREMENTS_PER_THREAD);
+        }
+    }
+}
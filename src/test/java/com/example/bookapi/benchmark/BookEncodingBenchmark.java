@@ -0,0 +1,85 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookPageResponse;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.encoding.ProtobufBookHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JMH comparison of the negotiable encodings of a {@link BookPageResponse}, with and without gzip at
+ * Tomcat's default level. Payload sizes are reported by {@code BookEncodingSizeReportTest}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookEncodingBenchmark {
+    @Param({"json", "smile", "cbor", "protobuf"})
+    private String format;
+    @Param({"100", "1000"})
+    private int size;
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    // Serializers close their target, which OutputStream.nullOutputStream() does not survive
+    private final OutputStream out = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private ObjectWriter writer;
+    private BookPageResponse pageResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        writer = writerFor(format);
+        pageResponse = page(size);
+    }
+
+    static BookPageResponse page(int size) {
+        List<BookResponse> books = IntStream.range(0, size)
+                .mapToObj(i -> BookResponse.builder().id((long) i).title("Title " + i).author("Author " + i)
+                        .publishedYear(1950 + i % 70).build())
+                .toList();
+        return BookPageResponse.fromPage(new PageImpl<>(books, PageRequest.of(0, size), size * 10L));
+    }
+
+    /**
+     * @param format json, smile, cbor or protobuf
+     * @return a writer for book pages, configured the way the application configures it
+     */
+    static ObjectWriter writerFor(String format) throws IOException {
+        return switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build().writerFor(BookPageResponse.class);
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build().writerFor(BookPageResponse.class);
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build().writerFor(BookPageResponse.class);
+            case "protobuf" -> new ProtobufMapper().writer(ProtobufSchemaLoader.std
+                    .parseNative(ProtobufBookHttpMessageConverter.SCHEMA).forType("BookPageResponse"));
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+
+    @Benchmark
+    public void serializePage() throws IOException {
+        writer.writeValue(gzip ? new GZIPOutputStream(out) : out, pageResponse);
+    }
+}
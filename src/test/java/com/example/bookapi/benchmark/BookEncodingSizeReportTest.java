@@ -0,0 +1,46 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookPageResponse;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prints the payload size of a book page in each negotiable encoding, raw and gzipped.
+ * Run with {@code mvn test -Pbenchmark -Dtest=BookEncodingSizeReportTest}; {@code BookEncodingBenchmark} times them.
+ */
+@Tag("benchmark")
+class BookEncodingSizeReportTest {
+    private static final List<String> FORMATS = List.of("json", "smile", "cbor", "protobuf");
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+
+    @Test
+    void printPayloadSizes() throws IOException {
+        System.out.printf("%-6s %-9s %10s %10s %8s%n", "books", "format", "bytes", "gzipped", "vs json");
+        for (int size : new int[]{10, 100, 1000}) {
+            BookPageResponse page = BookEncodingBenchmark.page(size);
+            int json = BookEncodingBenchmark.writerFor("json").writeValueAsBytes(page).length;
+            for (String format : FORMATS) {
+                ObjectWriter writer = BookEncodingBenchmark.writerFor(format);
+                byte[] bytes = writer.writeValueAsBytes(page);
+                System.out.printf("%-6d %-9s %10d %10d %7.0f%%%n", size, format, bytes.length, gzippedSize(bytes),
+                        100.0 * bytes.length / json);
+                assertTrue(bytes.length <= json, format + " should not be larger than JSON");
+            }
+        }
+    }
+}
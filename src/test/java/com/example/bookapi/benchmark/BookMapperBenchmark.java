@@ -0,0 +1,63 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookMapper;
+import com.example.bookapi.dto.BookPageResponse;
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.model.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JMH baseline for the DTO mapping done on every book request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMapperBenchmark {
+    private BookRequest request;
+    private Book book;
+    private Page<BookResponse> page;
+
+    @Setup
+    public void setUp() {
+        request = BookRequest.builder().title("Clean Code").author("Robert C. Martin").publishedYear(2008).build();
+        book = Book.builder().id(42L).title("Refactoring").author("Martin Fowler").publishedYear(1999).build();
+        List<BookResponse> content = IntStream.range(0, 20)
+                .mapToObj(i -> BookResponse.builder().id((long) i).title("Title " + i).author("Author " + i)
+                        .publishedYear(1950 + i).build())
+                .toList();
+        page = new PageImpl<>(content, PageRequest.of(3, 20, Sort.by("title")), 1000);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return BookMapper.toEntity(request);
+    }
+
+    @Benchmark
+    public BookResponse toResponse() {
+        return BookMapper.toResponse(book);
+    }
+
+    @Benchmark
+    public Book updateEntity() {
+        BookMapper.updateEntity(book, request);
+        return book;
+    }
+
+    @Benchmark
+    public BookPageResponse fromPage() {
+        return BookPageResponse.fromPage(page);
+    }
+}
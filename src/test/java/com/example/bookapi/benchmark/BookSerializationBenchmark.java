@@ -0,0 +1,64 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookPageResponse;
+import com.example.bookapi.dto.BookResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JMH baseline for Jackson serialization of book responses, using an ObjectMapper built the way Spring MVC builds it.
+ * Output goes to a discarding stream, as the servlet response would, so buffer copies are not measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookSerializationBenchmark {
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    // writeValue closes its target, which OutputStream.nullOutputStream() does not survive
+    private final OutputStream out = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private ObjectMapper objectMapper;
+    private List<BookResponse> books;
+    private BookPageResponse pageResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        books = IntStream.range(0, size)
+                .mapToObj(i -> BookResponse.builder().id((long) i).title("Title " + i).author("Author " + i)
+                        .publishedYear(1950 + i % 70).build())
+                .toList();
+        pageResponse = BookPageResponse.fromPage(new PageImpl<>(books, PageRequest.of(0, size), size * 10L));
+    }
+
+    @Benchmark
+    public void serializeList() throws IOException {
+        objectMapper.writeValue(out, books);
+    }
+
+    @Benchmark
+    public void serializePage() throws IOException {
+        objectMapper.writeValue(out, pageResponse);
+    }
+}
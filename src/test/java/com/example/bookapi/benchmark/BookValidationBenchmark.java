@@ -0,0 +1,57 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.model.CurrentYearOrEarlierValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH baseline for Bean Validation of {@link BookRequest}, including the {@code @CurrentYearOrEarlier} check.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private final CurrentYearOrEarlierValidator yearValidator = new CurrentYearOrEarlierValidator();
+    private BookRequest valid;
+    private BookRequest invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        valid = BookRequest.builder().title("Clean Code").author("Robert C. Martin").publishedYear(2008).build();
+        invalid = BookRequest.builder().title("").author(" ").publishedYear(9999).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookRequest>> validateValidRequest() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookRequest>> validateInvalidRequest() {
+        return validator.validate(invalid);
+    }
+
+    @Benchmark
+    public boolean currentYearOrEarlier() {
+        return yearValidator.isValid(2008, null);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.groupcommit.BookCreateQueue;
+import com.example.bookapi.service.BookService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares single-book creates from many threads, committed one transaction per book and through the
+ * group commit queue. Run with {@code mvn test -Pbenchmark -Dtest=GroupCommitBenchmarkTest
+ * [-Dbenchmark.threads=32] [-Dbenchmark.url=jdbc:h2:file:./target/group-commit-bench]}; a file database
+ * makes each commit cost what it does in the {@code persistent} profile.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.datasource.url=${benchmark.url:jdbc:h2:mem:group-commit-bench}",
+        "spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.example.bookapi.service=WARN"})
+class GroupCommitBenchmarkTest {
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int CREATES_PER_THREAD = Integer.getInteger("benchmark.creates", 500);
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private double createsPerSecond(Consumer<BookRequest> create) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < CREATES_PER_THREAD; i++) {
+                    create.accept(new BookRequest("Title " + thread + "-" + i, "Author " + thread, 2000));
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return THREADS * CREATES_PER_THREAD * 1e9 / (System.nanoTime() - begin);
+    }
+
+    @Test
+    void groupCommitShouldOutrunOneCommitPerCreate() throws Exception {
+        jdbcTemplate.update("DELETE FROM book");
+        // Each path gets a warm-up round first
+        createsPerSecond(bookService::create);
+
+        double direct = createsPerSecond(bookService::create);
+        double grouped;
+        try (BookCreateQueue queue = new BookCreateQueue(bookService, true, 100, Duration.ofMillis(2), 10_000,
+                Duration.ofSeconds(30), Duration.ofMinutes(1))) {
+            createsPerSecond(queue::create);
+            grouped = createsPerSecond(queue::create);
+        }
+
+        System.out.printf("%d threads x %d creates: one commit each %.0f creates/s, group commit %.0f creates/s (%.1fx)%n",
+                THREADS, CREATES_PER_THREAD, direct, grouped, grouped / direct);
+        assertEquals(4L * THREADS * CREATES_PER_THREAD, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class));
+    }
+}
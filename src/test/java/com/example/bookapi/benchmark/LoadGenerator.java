@@ -0,0 +1,228 @@
+package com.example.bookapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Open-loop HTTP load generator.
+ * Requests are started on a fixed schedule at the target rate, independent of how fast responses come back,
+ * and latency is measured from each request's <em>intended</em> start time. A stalled server therefore shows up
+ * as latency for every request that should have been sent during the stall (no coordinated omission).
+ * The time from the actual send is recorded separately as service time, so the two can be compared.
+ * Requests still outstanding when the drain timeout ends the run are recorded as timed out, with their latency
+ * up to that point, rather than dropped; a run with any of them is reported by {@link Report#timeouts()}.
+ */
+class LoadGenerator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(1);
+
+    private final HttpClient client;
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    /**
+     * One kind of request in the traffic mix.
+     * @param name report key
+     * @param weight relative share of the traffic
+     * @param expectedStatuses statuses counted as success
+     * @param request builds the next request
+     * @param onResponse optional hook to feed state (e.g. created ids) back into later requests
+     */
+    record Operation(String name, int weight, Set<Integer> expectedStatuses,
+                     Function<Random, HttpRequest> request, Consumer<HttpResponse<String>> onResponse) {
+        Operation(String name, int weight, int expectedStatus, Function<Random, HttpRequest> request) {
+            this(name, weight, Set.of(expectedStatus), request, response -> { });
+        }
+    }
+
+    // One request, recorded exactly once: by its response or by the end of the run
+    private record Pending(CompletableFuture<?> response, AtomicBoolean recorded, long intended, long sent,
+                           Stats stats) {
+    }
+
+    LoadGenerator(HttpClient client, List<Operation> operations) {
+        this.client = client;
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    /**
+     * Drive the mix at {@code rate} requests/second for {@code duration} and wait up to a minute for
+     * outstanding responses.
+     */
+    Report run(int rate, Duration duration, long seed) {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        operations.forEach(op -> stats.put(op.name(), new Stats()));
+        Stats all = new Stats();
+        Random random = new Random(seed);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long count = duration.toNanos() / intervalNanos;
+        List<Pending> inFlight = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long intended = start + i * intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation op = pick(random);
+            Stats opStats = stats.get(op.name());
+            HttpRequest request = op.request().apply(random);
+            long sent = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            CompletableFuture<?> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((result, failure) -> {
+                        if (!recorded.compareAndSet(false, true)) {
+                            return;
+                        }
+                        long done = System.nanoTime();
+                        boolean ok = failure == null && op.expectedStatuses().contains(result.statusCode());
+                        opStats.record(intended, sent, done, ok);
+                        all.record(intended, sent, done, ok);
+                        if (ok) {
+                            op.onResponse().accept(result);
+                        }
+                    });
+            inFlight.add(new Pending(response, recorded, intended, sent, opStats));
+        }
+        try {
+            CompletableFuture.allOf(inFlight.stream().map(Pending::response).toArray(CompletableFuture[]::new))
+                    .get(DRAIN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Failed requests are already recorded; the unfinished ones are recorded below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long abandoned = System.nanoTime();
+        for (Pending pending : inFlight) {
+            if (pending.recorded().compareAndSet(false, true)) {
+                pending.response().cancel(true);
+                pending.stats().recordTimeout(pending.intended(), pending.sent(), abandoned);
+                all.recordTimeout(pending.intended(), pending.sent(), abandoned);
+            }
+        }
+        long elapsed = abandoned - start;
+
+        Map<String, Report.OperationReport> byOperation = new LinkedHashMap<>();
+        stats.forEach((name, s) -> byOperation.put(name, s.report(elapsed)));
+        return new Report(Instant.now().toString(), rate, duration.toSeconds(), all.report(elapsed), byOperation);
+    }
+
+    private Operation pick(Random random) {
+        int r = random.nextInt(totalWeight);
+        for (Operation op : operations) {
+            r -= op.weight();
+            if (r < 0) {
+                return op;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static final class Stats {
+        private final Histogram responseTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        void record(long intended, long sent, long done, boolean ok) {
+            responseTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (done - intended) / 1_000));
+            serviceTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (done - sent) / 1_000));
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        // Counted as an error too, with the latency it had reached when the run gave up on it
+        void recordTimeout(long intended, long sent, long abandoned) {
+            timeouts.incrementAndGet();
+            record(intended, sent, abandoned, false);
+        }
+
+        Report.OperationReport report(long elapsedNanos) {
+            long total = responseTime.getTotalCount();
+            return new Report.OperationReport(total, errors.get(), timeouts.get(),
+                    total / (elapsedNanos / 1e9),
+                    Report.Latency.of(responseTime), Report.Latency.of(serviceTime));
+        }
+    }
+
+    /**
+     * Machine-readable run result.
+     * Latencies are in milliseconds; {@code histogram} is the compressed HdrHistogram (microseconds, base64)
+     * so runs can be merged or re-plotted later.
+     */
+    record Report(String finishedAt, int targetRate, long durationSeconds,
+                  OperationReport total, Map<String, OperationReport> operations) {
+        record OperationReport(long requests, long errors, long timeouts, double throughput,
+                               Latency responseTime, Latency serviceTime) {
+        }
+
+        record Latency(double mean, double p50, double p90, double p99, double p999, double max, String histogram) {
+            static Latency of(Histogram h) {
+                ByteBuffer buffer = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+                int length = h.encodeIntoCompressedByteBuffer(buffer);
+                return new Latency(h.getMean() / 1000, ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9),
+                        h.getMaxValue() / 1000.0,
+                        Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+            }
+
+            private static double ms(Histogram h, double percentile) {
+                return h.getValueAtPercentile(percentile) / 1000.0;
+            }
+        }
+
+        /**
+         * @return requests that had no response when the run ended; a run with any is incomplete
+         */
+        long timeouts() {
+            return total.timeouts();
+        }
+
+        void write(Path file) throws IOException {
+            Files.createDirectories(file.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+        }
+
+        String summary() {
+            StringBuilder sb = new StringBuilder(String.format("%-22s %8s %6s %8s %9s %9s %9s %9s %9s%n",
+                    "operation", "requests", "errors", "timeouts", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "svc p99"));
+            Map<String, OperationReport> rows = new LinkedHashMap<>(operations);
+            rows.put("TOTAL", total);
+            rows.forEach((name, r) -> sb.append(String.format("%-22s %8d %6d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    name, r.requests(), r.errors(), r.timeouts(), r.throughput(), r.responseTime().p50(),
+                    r.responseTime().p99(), r.responseTime().p999(), r.serviceTime().p99())));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.search.BookSearchIndex;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search latency over a large catalog. Titles and authors are drawn from a Zipf-distributed vocabulary, like
+ * natural text, and queries from the same distribution, so common terms match a large share of the catalog.
+ * Run with {@code mvn test -Pbenchmark -Dtest=SearchIndexBenchmarkTest -DargLine=-Xmx3g
+ * [-Dbenchmark.books=1000000] [-Dbenchmark.queries=2000] [-Dbenchmark.maxP99Micros=1000]}; the test fails when
+ * the p99 exceeds the limit.
+ */
+@Tag("benchmark")
+class SearchIndexBenchmarkTest {
+    private static final int BOOKS = Integer.getInteger("benchmark.books", 1_000_000);
+    private static final int QUERIES = Integer.getInteger("benchmark.queries", 2_000);
+    // Enough for the JIT to compile the search before it is measured
+    private static final int WARM_UP_QUERIES = Integer.getInteger("benchmark.warmUpQueries", 50_000);
+    private static final long MAX_P99_MICROS = Long.getLong("benchmark.maxP99Micros", 1_000);
+    private static final int VOCABULARY = 20_000;
+    private static final int SURNAMES = 5_000;
+
+    private final Random random = new Random(42);
+    private final String[] words = new String[VOCABULARY];
+    // Cumulative Zipf (s = 1) weights, so word i is about i times rarer than the most common one
+    private final double[] cumulative = new double[VOCABULARY];
+
+    private String word() {
+        double r = random.nextDouble() * cumulative[VOCABULARY - 1];
+        int i = Arrays.binarySearch(cumulative, r);
+        return words[i < 0 ? -i - 1 : i];
+    }
+
+    private String title() {
+        int length = 2 + random.nextInt(5);
+        StringBuilder title = new StringBuilder(word());
+        for (int i = 1; i < length; i++) {
+            title.append(' ').append(word());
+        }
+        return title.toString();
+    }
+
+    // One or two terms; half the time the last is cut to a prefix, as typed into a search box
+    private String query() {
+        String last = word();
+        if (random.nextBoolean() && last.length() > 3) {
+            last = last.substring(0, 3 + random.nextInt(last.length() - 3));
+        }
+        return random.nextBoolean() ? word() + " " + last : last;
+    }
+
+    private static Histogram measure(BookSearchIndex index, List<String> queries) {
+        Histogram micros = new Histogram(TimeUnit.SECONDS.toMicros(10), 3);
+        for (String query : queries) {
+            long start = System.nanoTime();
+            index.search(query, PageRequest.of(0, 10));
+            micros.recordValue((System.nanoTime() - start) / 1_000);
+        }
+        return micros;
+    }
+
+    @Test
+    void searchLatencyOverALargeCatalog() {
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = Long.toString(0x10000L + i * 7919L % 0xfffffL, 36);
+            cumulative[i] = (i == 0 ? 0 : cumulative[i - 1]) + 1.0 / (i + 1);
+        }
+        BookSearchIndex index = new BookSearchIndex(null, null, null);
+        long buildStart = System.nanoTime();
+        for (long id = 1; id <= BOOKS; id++) {
+            index.index(BookResponse.builder().id(id).title(title())
+                    .author(word() + " Surname" + random.nextInt(SURNAMES)).publishedYear(2000).version(0L).build());
+        }
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - buildStart);
+        List<String> warmUp = new ArrayList<>(WARM_UP_QUERIES);
+        for (int i = 0; i < WARM_UP_QUERIES; i++) {
+            warmUp.add(query());
+        }
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(query());
+        }
+        measure(index, warmUp);
+
+        Histogram micros = measure(index, queries);
+
+        System.out.printf("%d books indexed in %d ms; %d queries, top 10: p50 %d us, p90 %d us, p99 %d us, "
+                        + "p99.9 %d us, max %d us%n", BOOKS, buildMillis, QUERIES,
+                micros.getValueAtPercentile(50), micros.getValueAtPercentile(90), micros.getValueAtPercentile(99),
+                micros.getValueAtPercentile(99.9), micros.getMaxValue());
+        assertEquals(BOOKS, index.size());
+        assertTrue(micros.getValueAtPercentile(99) <= MAX_P99_MICROS,
+                "p99 " + micros.getValueAtPercentile(99) + "us exceeds " + MAX_P99_MICROS + "us");
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.dto.SnapshotResponse;
+import com.example.bookapi.snapshot.DatabaseSnapshot;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Times a snapshot dump and restore of a large catalog.
+ * Run with {@code mvn test -Pbenchmark -Dtest=SnapshotRestoreBenchmarkTest [-Dbenchmark.books=1000000]}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:snapshot-bench",
+        "spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=INFO"})
+class SnapshotRestoreBenchmarkTest {
+    private static final int BOOKS = Integer.getInteger("benchmark.books", 1_000_000);
+    private static final int BATCH_SIZE = 10_000;
+
+    @Autowired
+    private DatabaseSnapshot databaseSnapshot;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void dumpAndRestoreLargeCatalog() throws Exception {
+        jdbcTemplate.update("DELETE FROM book");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= BOOKS; i++) {
+            batch.add(new Object[]{i, "Title " + i, "Author " + (i % 5000), 1900 + i % 125});
+            if (batch.size() == BATCH_SIZE || i == BOOKS) {
+                jdbcTemplate.batchUpdate("INSERT INTO book (id, title, author, published_year) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        Path file = tempDir.resolve("bookapi.snapshot");
+
+        SnapshotResponse dumped = databaseSnapshot.dump(file);
+        SnapshotResponse restored = databaseSnapshot.restore(file);
+
+        System.out.printf("Snapshot of %d books: %.1f MB, dump %d ms, restore %d ms (%.0f rows/s)%n",
+                dumped.getBooks(), dumped.getBytes() / 1e6, dumped.getMillis(), restored.getMillis(),
+                restored.getBooks() * 1000.0 / Math.max(1, restored.getMillis()));
+        assertEquals(BOOKS, restored.getBooks());
+        assertEquals(BOOKS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Integer.class));
+    }
+}
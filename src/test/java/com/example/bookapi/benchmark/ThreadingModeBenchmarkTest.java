@@ -0,0 +1,141 @@
+package com.example.bookapi.benchmark;
+
+import com.example.bookapi.BookApiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares throughput and tail latency of the default (platform thread) mode and the {@code virtual-threads}
+ * profile at a concurrency above Tomcat's 200 worker threads. Each mode gets its own application and database.
+ * Run on Java 21+ with {@code mvn test -Pbenchmark -Dtest=ThreadingModeBenchmarkTest}.
+ */
+@Tag("benchmark")
+class ThreadingModeBenchmarkTest {
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 400);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmupSeconds", 5));
+    private static final Duration MEASURE = Duration.ofSeconds(Long.getLong("benchmark.seconds", 20));
+    // Paginated listing: a count and a select per request, nothing cached
+    private static final String PATH = "/books?page=0&size=20&sortBy=title";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(16))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21+");
+
+        Result platform = runMode("platform");
+        Result virtual = runMode("virtual-threads");
+
+        System.out.printf("GET %s, %d concurrent clients%n", PATH, CONCURRENCY);
+        System.out.println(platform);
+        System.out.println(virtual);
+    }
+
+    private Result runMode(String profile) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookApiApplication.class)
+                .profiles(profile)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + profile,
+                        "spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=INFO",
+                        "book-api.rate-limit.enabled=false")
+                .run()) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            // Bearer auth so BCrypt does not dominate the measurement
+            String basic = "Basic " + Base64.getEncoder()
+                    .encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+            HttpResponse<String> token = client.send(HttpRequest.newBuilder(URI.create(base + "/auth/token"))
+                    .header("Authorization", basic)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, token.statusCode());
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + PATH))
+                    .header("Authorization", "Bearer " + objectMapper.readTree(token.body()).get("token").asText())
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+
+            load(request, WARMUP);
+            long[] latencies = load(request, MEASURE);
+            return new Result(profile, latencies, MEASURE);
+        }
+    }
+
+    /**
+     * Closed-loop load: every client sends its next request as soon as the previous one completes.
+     * @return sorted latencies in microseconds
+     */
+    private long[] load(HttpRequest request, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<long[]>> workers = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                workers.add(clients.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = (System.nanoTime() - start) / 1_000;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            List<long[]> all = new ArrayList<>();
+            for (Future<long[]> worker : workers) {
+                all.add(worker.get());
+            }
+            assertEquals(0, errors.get(), "non-200 responses");
+            long[] latencies = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return latencies;
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private record Result(String mode, long[] latencies, Duration duration) {
+        long percentile(double p) {
+            return latencies[Math.min(latencies.length - 1, (int) Math.ceil(p / 100 * latencies.length) - 1)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s %8.0f req/s  p50=%6.1fms  p99=%7.1fms  p99.9=%7.1fms  max=%7.1fms",
+                    mode, latencies.length / (double) duration.toSeconds(),
+                    percentile(50) / 1000.0, percentile(99) / 1000.0, percentile(99.9) / 1000.0,
+                    latencies[latencies.length - 1] / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.bookapi.changes;
+
+import com.example.bookapi.dto.BookChangePageResponse;
+import com.example.bookapi.dto.BookChangeResponse;
+import com.example.bookapi.dto.BookPatchRequest;
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.model.BookChange;
+import com.example.bookapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The stream is only observable over a real connection; its own database, so the log holds only these writes
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:changes-test")
+class BookChangeFeedIntegrationTest {
+    private static final String AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookChangeLog changeLog;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper json = JsonMapper.builder().findAndAddModules().build();
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", AUTHORIZATION);
+    }
+
+    private HttpResponse<byte[]> get(String path) throws Exception {
+        return client.send(request(path).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private BookChangePageResponse page(long since, int limit) throws Exception {
+        HttpResponse<byte[]> response = get("/books/changes?since=" + since + "&limit=" + limit);
+        assertEquals(200, response.statusCode());
+        return json.readValue(response.body(), BookChangePageResponse.class);
+    }
+
+    // Every entry after the cursor, two per request
+    private List<BookChangeResponse> changesSince(long since) throws Exception {
+        List<BookChangeResponse> changes = new ArrayList<>();
+        BookChangePageResponse page;
+        do {
+            page = page(since, 2);
+            changes.addAll(page.getChanges());
+            since = page.getNextSince();
+        } while (page.isHasMore());
+        return changes;
+    }
+
+    private long cursor() {
+        return changeLog.changesSince(0, BookChangeLog.MAX_PAGE_SIZE).getNextSince();
+    }
+
+    @Test
+    void shouldPageThroughEveryWriteInOrder() throws Exception {
+        long since = cursor();
+        BookResponse dune = bookService.create(new BookRequest("Dune", "Frank Herbert", 1965));
+        BookResponse emma = bookService.create(new BookRequest("Emma", "Jane Austen", 1815));
+        bookService.update(dune.getId(), new BookRequest("Dune Messiah", "Frank Herbert", 1969), null);
+        bookService.patch(emma.getId(), BookPatchRequest.builder().publishedYear(1816).build(), 0);
+        bookService.delete(dune.getId(), null);
+
+        List<BookChangeResponse> changes = changesSince(since);
+
+        assertEquals(List.of(BookChange.Type.CREATED, BookChange.Type.CREATED, BookChange.Type.REPLACED,
+                BookChange.Type.UPDATED, BookChange.Type.DELETED), changes.stream().map(BookChangeResponse::getType).toList());
+        assertEquals(List.of(dune.getId(), emma.getId(), dune.getId(), emma.getId(), dune.getId()),
+                changes.stream().map(BookChangeResponse::getBookId).toList());
+        assertEquals("Dune Messiah", changes.get(2).getTitle());
+        // A patch logs only what it changed
+        assertNull(changes.get(3).getTitle());
+        assertEquals(1816, changes.get(3).getPublishedYear());
+        assertEquals(1L, changes.get(3).getVersion());
+        for (int i = 1; i < changes.size(); i++) {
+            assertTrue(changes.get(i).getSeq() > changes.get(i - 1).getSeq());
+        }
+        assertTrue(page(changes.get(4).getSeq(), 10).getChanges().isEmpty());
+    }
+
+    @Test
+    void shouldHoldBackLaterChangesUntilEarlierTransactionsComplete() throws Exception {
+        long since = cursor();
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<BookResponse> slow = pool.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+                BookResponse book = bookService.create(new BookRequest("Slow", "Writer", 2000));
+                written.countDown();
+                await(release);
+                return book;
+            }));
+            assertTrue(written.await(10, TimeUnit.SECONDS));
+            BookResponse fast = bookService.create(new BookRequest("Fast", "Writer", 2000));
+
+            // Committed, but numbered after an open transaction's entry
+            assertTrue(changesSince(since).isEmpty());
+
+            release.countDown();
+            BookResponse slowBook = slow.get(10, TimeUnit.SECONDS);
+            assertEquals(List.of(slowBook.getId(), fast.getId()),
+                    changesSince(since).stream().map(BookChangeResponse::getBookId).toList());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void rolledBackWritesShouldLeaveAGapButNotBlockTheFeed() throws Exception {
+        long since = cursor();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.create(new BookRequest("Rolled Back", "Writer", 2000));
+            status.setRollbackOnly();
+        });
+        BookResponse kept = bookService.create(new BookRequest("Kept", "Writer", 2000));
+
+        List<BookChangeResponse> changes = changesSince(since);
+
+        assertEquals(1, changes.size());
+        assertEquals(kept.getId(), changes.get(0).getBookId());
+        assertTrue(changes.get(0).getSeq() > since + 1);
+    }
+
+    @Test
+    void shouldRejectCursorsFromAnotherLogAndBadLimits() throws Exception {
+        // Numbered from the clock, so small cursors from an earlier in-memory log are recognised
+        assertEquals(410, get("/books/changes?since=5").statusCode());
+        assertEquals(410, get("/books/changes?since=" + Long.MAX_VALUE).statusCode());
+        assertEquals(400, get("/books/changes?since=0&limit=0").statusCode());
+        assertEquals(400, get("/books/changes?since=0&limit=1001").statusCode());
+        HttpResponse<byte[]> stream = client.send(request("/books/changes/stream?since=5")
+                .header("Accept", "text/event-stream").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(410, stream.statusCode());
+    }
+
+    @Test
+    void shouldStreamChangesAndResumeFromTheLastEventId() throws Exception {
+        long since = cursor();
+        BookResponse before = bookService.create(new BookRequest("Before", "Streamer", 2000));
+
+        try (EventStream events = new EventStream("/books/changes/stream?since=" + since, null)) {
+            BookChangeResponse first = events.next();
+            assertEquals(before.getId(), first.getBookId());
+
+            BookResponse after = bookService.create(new BookRequest("After", "Streamer", 2001));
+            BookChangeResponse second = events.next();
+            assertEquals(after.getId(), second.getBookId());
+            assertEquals("After", second.getTitle());
+            assertEquals(String.valueOf(second.getSeq()), events.lastId);
+
+            bookService.delete(before.getId(), null);
+            try (EventStream resumed = new EventStream("/books/changes/stream?since=" + since, events.lastId)) {
+                BookChangeResponse deleted = resumed.next();
+                assertEquals(BookChange.Type.DELETED, deleted.getType());
+                assertEquals(before.getId(), deleted.getBookId());
+            }
+        }
+    }
+
+    @Test
+    void compactionShouldKeepOneEntryPerBookAndStillRebuildTheCatalog() throws Exception {
+        BookResponse dune = bookService.create(new BookRequest("Dune", "Frank Herbert", 1965));
+        BookResponse emma = bookService.create(new BookRequest("Emma", "Jane Austen", 1815));
+        BookResponse gone = bookService.create(new BookRequest("Gone", "Nobody", 2000));
+        bookService.patch(dune.getId(), BookPatchRequest.builder().title("Dune Messiah").build(), 0);
+        bookService.patch(dune.getId(), BookPatchRequest.builder().publishedYear(1969).build(), 1);
+        bookService.update(emma.getId(), new BookRequest("Emma", "Jane Austen", 1816), null);
+        bookService.delete(gone.getId(), null);
+
+        int removed = changeLog.compact(Instant.now().plusSeconds(1));
+
+        assertTrue(removed >= 4);
+        List<BookChangeResponse> replay = changesSince(0);
+        assertEquals(replay.size(), replay.stream().map(BookChangeResponse::getBookId).distinct().count());
+        Map<Long, BookResponse> mirror = new HashMap<>();
+        for (BookChangeResponse change : replay) {
+            apply(mirror, change);
+        }
+        Map<Long, BookResponse> catalog = new HashMap<>();
+        bookService.findAll().forEach(book -> catalog.put(book.getId(), book));
+        assertEquals(catalog, mirror);
+        assertEquals(BookChange.Type.CREATED, replay.stream()
+                .filter(change -> change.getBookId().equals(dune.getId())).findFirst().orElseThrow().getType());
+        assertEquals(BookChange.Type.DELETED, replay.stream()
+                .filter(change -> change.getBookId().equals(gone.getId())).findFirst().orElseThrow().getType());
+        assertEquals(0, changeLog.compact(Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void mirrorsShouldSeeAReplacementClearTheYear() throws Exception {
+        long since = cursor();
+        BookResponse book = bookService.create(new BookRequest("Undated", "Anonymous", 1900));
+        Map<Long, BookResponse> mirror = new HashMap<>();
+        changesSince(since).forEach(change -> apply(mirror, change));
+        since = cursor();
+
+        bookService.update(book.getId(), new BookRequest("Undated", "Anonymous", null), null);
+        bookService.patch(book.getId(), BookPatchRequest.builder().author("Unknown").build(), 1);
+        changesSince(since).forEach(change -> apply(mirror, change));
+
+        BookResponse current = bookService.findById(book.getId());
+        assertNull(current.getPublishedYear());
+        assertEquals(current, mirror.get(book.getId()));
+        // Compaction folds the patch into the replacement without bringing the old year back
+        changeLog.compact(Instant.now().plusSeconds(1));
+        Map<Long, BookResponse> replayed = new HashMap<>();
+        changesSince(0).forEach(change -> apply(replayed, change));
+        assertEquals(current, replayed.get(book.getId()));
+    }
+
+    // What a mirror does with each entry
+    private static void apply(Map<Long, BookResponse> mirror, BookChangeResponse change) {
+        switch (change.getType()) {
+            case DELETED -> mirror.remove(change.getBookId());
+            case CREATED, REPLACED -> mirror.put(change.getBookId(), new BookResponse(change.getBookId(), change.getTitle(),
+                    change.getAuthor(), change.getPublishedYear(), change.getVersion()));
+            case UPDATED -> {
+                BookResponse book = mirror.get(change.getBookId());
+                if (change.getTitle() != null) {
+                    book.setTitle(change.getTitle());
+                }
+                if (change.getAuthor() != null) {
+                    book.setAuthor(change.getAuthor());
+                }
+                if (change.getPublishedYear() != null) {
+                    book.setPublishedYear(change.getPublishedYear());
+                }
+                book.setVersion(change.getVersion());
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads {@code change} events from an open stream on a background thread.
+     */
+    private class EventStream implements AutoCloseable {
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private final Stream<String> body;
+        private String lastId;
+
+        EventStream(String path, String lastEventId) throws Exception {
+            HttpRequest.Builder builder = request(path).header("Accept", "text/event-stream");
+            if (lastEventId != null) {
+                builder.header("Last-Event-ID", lastEventId);
+            }
+            HttpResponse<Stream<String>> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofLines());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/event-stream"));
+            body = response.body();
+            Thread reader = new Thread(() -> {
+                try {
+                    body.forEach(lines::add);
+                } catch (RuntimeException ignored) {
+                    // Closed by the test
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        BookChangeResponse next() throws Exception {
+            while (true) {
+                String line = lines.poll(10, TimeUnit.SECONDS);
+                assertNotNull(line, "Timed out waiting for an event");
+                if (line.startsWith("id:")) {
+                    lastId = line.substring(3).trim();
+                } else if (line.startsWith("data:")) {
+                    return json.readValue(line.substring(5), BookChangeResponse.class);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            body.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String obtainToken(String username) throws Exception {
+        String response = mockMvc.perform(post("/auth/token").with(httpBasic(username, "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andExpect(jsonPath("$.expiresIn").value(900))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("token").asText();
+    }
+
+    @Test
+    void tokenShouldAuthenticateRequests() throws Exception {
+        String token = obtainToken("user");
+
+        mockMvc.perform(get("/books").param("size", "1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray());
+    }
+
+    @Test
+    void tokenShouldCarryRoles() throws Exception {
+        String userToken = obtainToken("user");
+        String adminToken = obtainToken("admin");
+
+        mockMvc.perform(get("/actuator/caches").header(HttpHeaders.AUTHORIZATION, "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/caches").header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void invalidTokenShouldBeUnauthorized() throws Exception {
+        String token = obtainToken("user");
+
+        mockMvc.perform(get("/books").param("size", "1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void tokenEndpointShouldRequireCredentials() throws Exception {
+        mockMvc.perform(post("/auth/token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/auth/token").with(httpBasic("user", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void tokenShouldNotBeExchangedForANewOne() throws Exception {
+        String token = obtainToken("user");
+
+        mockMvc.perform(post("/auth/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void httpBasicShouldStillWork() throws Exception {
+        mockMvc.perform(get("/books").param("size", "1").with(httpBasic("user", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray());
+    }
+}
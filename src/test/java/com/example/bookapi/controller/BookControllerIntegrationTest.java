@@ -12,8 +12,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -180,6 +186,191 @@ class BookControllerIntegrationTest {
                 .andExpect(jsonPath("$.totalPages").value(0));
     }
 
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void getAllBooksWithCursorPagination() throws Exception {
+        // Create 5 books with titles out of insertion order
+        for (String title : new String[]{"E", "C", "A", "D", "B"}) {
+            bookRepository.save(Book.builder().title(title).author("Author").publishedYear(2000).build());
+        }
+
+        // First page starts from an empty cursor
+        String response = mockMvc.perform(get("/books?after=&size=2&sortBy=title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].title").value("A"))
+                .andExpect(jsonPath("$.content[1].title").value("B"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(response).get("nextCursor").asText();
+
+        response = mockMvc.perform(get("/books?size=2").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("C"))
+                .andExpect(jsonPath("$.content[1].title").value("D"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        cursor = objectMapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get("/books?size=2").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("E"))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void invalidCursorShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/books?after=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/books?after=&sortBy=publishedYear"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void badPagingAndSortParametersShouldReturnBadRequest() throws Exception {
+        for (String query : List.of("size=1001", "size=0", "page=-1", "sortBy=nope", "sortDir=sideways",
+                "after=&size=1001", "after=&sortDir=sideways")) {
+            mockMvc.perform(get("/books?" + query))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.status").value(400));
+        }
+        mockMvc.perform(get("/books/search").param("q", "dune").param("size", "1001"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/books?size=1000"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void getAllBooksWithFilters() throws Exception {
+        bookRepository.save(Book.builder().title("Dune").author("Herbert").publishedYear(1965).build());
+        bookRepository.save(Book.builder().title("Dune Messiah").author("Herbert").publishedYear(1969).build());
+        bookRepository.save(Book.builder().title("Children of Dune").author("Herbert").publishedYear(1976).build());
+        bookRepository.save(Book.builder().title("Dune_Encyclopedia").author("McNelly").publishedYear(1984).build());
+
+        mockMvc.perform(get("/books?author=Herbert&yearFrom=1966&sortBy=publishedYear"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].title").value("Dune Messiah"))
+                .andExpect(jsonPath("$.content[1].title").value("Children of Dune"));
+
+        mockMvc.perform(get("/books?titlePrefix=Dune&yearTo=1970&sortBy=title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[*].title", contains("Dune", "Dune Messiah")));
+
+        // LIKE wildcards in the prefix are matched literally
+        mockMvc.perform(get("/books?titlePrefix=Dune_"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Dune_Encyclopedia")));
+
+        // Filters also apply in cursor mode
+        mockMvc.perform(get("/books?after=&author=Herbert&sortBy=title&size=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.content[0].title").value("Children of Dune"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void searchBooksByTitleAndAuthor() throws Exception {
+        for (BookRequest request : List.of(
+                BookRequest.builder().title("The Hobbit").author("J.R.R. Tolkien").publishedYear(1937).build(),
+                BookRequest.builder().title("Hobbit Recipes").author("Someone Else").publishedYear(2001).build(),
+                BookRequest.builder().title("Silmarillion").author("J.R.R. Tolkien").publishedYear(1977).build())) {
+            mockMvc.perform(post("/books")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/books/search?q=hobbit tolk"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content[0].title").value("The Hobbit"));
+
+        mockMvc.perform(get("/books/search?q=silmar&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("Silmarillion"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void exportBooksAsNdjson() throws Exception {
+        bookRepository.save(Book.builder().title("A").author("B").publishedYear(2000).build());
+        bookRepository.save(Book.builder().title("C").author("D").publishedYear(2010).build());
+
+        MvcResult result = mockMvc.perform(get("/books/export").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.endsWith("}\n"));
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{"));
+        assertEquals("A", objectMapper.readTree(lines[0]).get("title").asText());
+        assertEquals("C", objectMapper.readTree(lines[1]).get("title").asText());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void exportBooksAsJsonArray() throws Exception {
+        bookRepository.save(Book.builder().title("A").author("B").publishedYear(2000).build());
+        bookRepository.save(Book.builder().title("C").author("D").publishedYear(2010).build());
+
+        MvcResult result = mockMvc.perform(get("/books/export").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title").value("A"))
+                .andExpect(jsonPath("$[1].title").value("C"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void createBooksInBatch() throws Exception {
+        List<BookRequest> requests = new java.util.ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            requests.add(BookRequest.builder().title("Book " + i).author("Author").publishedYear(2000).build());
+        }
+        mockMvc.perform(post("/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(120)))
+                .andExpect(jsonPath("$[0].id").exists())
+                .andExpect(jsonPath("$[119].title").value("Book 120"));
+        assertEquals(120, bookRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void createBooksInBatchShouldReportErrorsPerItem() throws Exception {
+        List<BookRequest> requests = List.of(
+                BookRequest.builder().title("Valid").author("Author").publishedYear(2000).build(),
+                BookRequest.builder().title("").author("Author").publishedYear(1400).build());
+        mockMvc.perform(post("/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors['[1].title']").exists())
+                .andExpect(jsonPath("$.errors['[1].publishedYear']").exists())
+                .andExpect(jsonPath("$.errors['[0].title']").doesNotExist());
+        assertEquals(0, bookRepository.count());
+    }
+
     @Test
     @WithMockUser(username = "user", roles = {"USER"})
     void updateBook() throws Exception {
@@ -192,6 +383,186 @@ class BookControllerIntegrationTest {
                 .andExpect(jsonPath("$.title").value("New"));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void cachedBookShouldBeInvalidatedOnUpdateAndDelete() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Old").author("Old").publishedYear(1990).build());
+        // Load into the cache, then read it back from the cache
+        mockMvc.perform(get("/books/" + book.getId())).andExpect(jsonPath("$.title").value("Old"));
+        mockMvc.perform(get("/books/" + book.getId())).andExpect(jsonPath("$.title").value("Old"));
+
+        BookRequest request = BookRequest.builder().title("New").author("New").publishedYear(2021).build();
+        mockMvc.perform(put("/books/" + book.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("New"));
+
+        mockMvc.perform(delete("/books/" + book.getId())).andExpect(status().isNoContent());
+        mockMvc.perform(get("/books/" + book.getId())).andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/metrics/cache.gets").param("tag", "cache:books").param("tag", "result:hit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThanOrEqualTo(1.0)));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void conditionalGetOfBookShouldAnswer304UntilItChanges() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Polled").author("A").publishedYear(2000).build());
+        String tag = mockMvc.perform(get("/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"0-")))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/books/" + book.getId()).header("If-None-Match", tag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", tag))
+                .andExpect(content().string(""));
+        // Another format of the same version is another representation, with its own strong tag
+        String cborTag = mockMvc.perform(get("/books/" + book.getId()).header("If-None-Match", tag)
+                        .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"0-")))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(tag, cborTag);
+
+        // Any representation's tag names the version for If-Match
+        mockMvc.perform(patch("/books/" + book.getId()).header("If-Match", cborTag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"publishedYear\":2001}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/books/" + book.getId()).header("If-None-Match", tag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"1-")))
+                .andExpect(jsonPath("$.publishedYear").value(2001));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void conditionalGetOfPagesShouldAnswer304UntilTheCatalogChanges() throws Exception {
+        BookRequest request = BookRequest.builder().title("Listed").author("A").publishedYear(2000).build();
+        String created = mockMvc.perform(post("/books").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+        String tag = mockMvc.perform(get("/books").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/\"")))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/books").param("page", "0").param("size", "5").header("If-None-Match", tag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/books/search").param("q", "Listed").header("If-None-Match", tag))
+                .andExpect(status().isNotModified());
+        // Another format of the same page is another representation
+        mockMvc.perform(get("/books").param("page", "0").param("size", "5").header("If-None-Match", tag)
+                        .accept("application/cbor"))
+                .andExpect(status().isOk());
+
+        for (var write : List.of(
+                put("/books/" + id).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(request)),
+                delete("/books/" + id),
+                post("/books").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(request)))) {
+            mockMvc.perform(write).andExpect(status().is2xxSuccessful());
+            String next = mockMvc.perform(get("/books").param("page", "0").param("size", "5").header("If-None-Match", tag))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertTrue(!tag.equals(next));
+            tag = next;
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void updateWithIfMatchShouldOnlyReplaceTheVersionItNames() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Old").author("Old").publishedYear(1990).build());
+        mockMvc.perform(get("/books/" + book.getId()))
+                .andExpect(header().string("ETag", startsWith("\"0-")))
+                .andExpect(jsonPath("$.version").value(0));
+
+        BookRequest request = BookRequest.builder().title("New").author("New").publishedYear(2021).build();
+        mockMvc.perform(put("/books/" + book.getId())
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"1-")))
+                .andExpect(jsonPath("$.version").value(1));
+        // A second writer that also read version 0 must not overwrite the first
+        mockMvc.perform(put("/books/" + book.getId())
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void patchShouldChangeOnlyTheGivenFieldsOfTheExpectedVersion() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Old").author("Author").publishedYear(1990).build());
+        String patch = "{\"publishedYear\":1991}";
+
+        mockMvc.perform(patch("/books/" + book.getId()).contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(patch("/books/" + book.getId()).header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(patch("/books/" + book.getId()).header("If-Match", " ")
+                        .contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(patch("/books/" + book.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(patch("/books/" + book.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/books/9999").header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/books/" + book.getId()))
+                .andExpect(jsonPath("$.title").value("Old"))
+                .andExpect(jsonPath("$.author").value("Author"))
+                .andExpect(jsonPath("$.publishedYear").value(1991))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void patchShouldBeValidated() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Old").author("Author").publishedYear(1990).build());
+        mockMvc.perform(patch("/books/" + book.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\" \",\"publishedYear\":1400}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.title").exists())
+                .andExpect(jsonPath("$.errors.publishedYear").exists());
+        mockMvc.perform(patch("/books/" + book.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void deleteWithIfMatchShouldOnlyRemoveTheVersionItNames() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("ToDelete").author("A").publishedYear(2000).build());
+        mockMvc.perform(delete("/books/" + book.getId()).header("If-Match", "\"7\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/books/" + book.getId()).header("If-Match", "W/\"0\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/books/" + book.getId()).header("If-Match", "\"0\""))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/books/" + book.getId()).header("If-Match", "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void deleteBookAsAdmin() throws Exception {
@@ -231,6 +602,8 @@ class BookControllerIntegrationTest {
     @WithMockUser(username = "user", roles = {"USER"})
     void notFoundShouldReturn404() throws Exception {
         mockMvc.perform(get("/books/9999"))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.message").value("Book not found"));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.example.bookapi.controller;
+
+import com.example.bookapi.dto.OrderRequest;
+import com.example.bookapi.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderControllerIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void placeAndCancelOrderShouldMaintainTotals() throws Exception {
+        Long carolId = userRepository.findAll().stream()
+                .filter(u -> u.getUsername().equals("carol")).findFirst().orElseThrow().getId();
+        OrderRequest request = OrderRequest.builder().userId(carolId).amount(12.5).build();
+
+        String response = mockMvc.perform(post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.userId").value(carolId))
+                .andReturn().getResponse().getContentAsString();
+        long orderId = objectMapper.readTree(response).get("id").asLong();
+
+        mockMvc.perform(get("/users/total-order-amount"))
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[?(@.username=='carol')].totalAmount", contains(12.5)));
+
+        mockMvc.perform(delete("/orders/" + orderId))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/users/total-order-amount"))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[?(@.username=='carol')]", empty()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void rebuildShouldRecomputeTotalsFromOrders() throws Exception {
+        jdbcTemplate.update("UPDATE app_user SET order_count = 0, total_order_amount = 0");
+
+        mockMvc.perform(post("/users/order-totals/rebuild"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/users/total-order-amount"))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[?(@.username=='alice')].totalAmount", contains(100.0)))
+                .andExpect(jsonPath("$[?(@.username=='dave')].totalAmount", contains(75.0)));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void placeOrderForUnknownUserShouldReturn404() throws Exception {
+        OrderRequest request = OrderRequest.builder().userId(9999L).amount(1.0).build();
+        mockMvc.perform(post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void nonAdminCannotCancelOrRebuild() throws Exception {
+        mockMvc.perform(delete("/orders/1")).andExpect(status().isForbidden());
+        mockMvc.perform(post("/users/order-totals/rebuild")).andExpect(status().isForbidden());
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.bookapi.controller;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -7,6 +10,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -15,6 +19,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class UserControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     @Test
     void getUsersWithMoreThan3Orders() throws Exception {
@@ -41,4 +47,46 @@ class UserControllerIntegrationTest {
                 .andExpect(jsonPath("$[?(@.username=='bob')].totalAmount", contains(40.0)))
                 .andExpect(jsonPath("$[?(@.username=='dave')].totalAmount", contains(75.0)));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getUsersByOrderCount() throws Exception {
+        mockMvc.perform(get("/users/by-order-count?min=1&max=4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(2)))
+                .andExpect(jsonPath("$.content[*].username", contains("bob", "alice")));
+
+        mockMvc.perform(get("/users/by-order-count?min=1&size=2&page=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(3)))
+                .andExpect(jsonPath("$.content[*].username", contains("dave")))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+    }
+
+    @Test
+    void getUsersByOrderCountWithInvalidRange() throws Exception {
+        mockMvc.perform(get("/users/by-order-count?min=5&max=1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void userEndpointsRunFixedNumberOfStatements() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            assertStatementCount(statistics, "/users/more-than-3-orders", 1);
+            assertStatementCount(statistics, "/users/no-orders", 1);
+            assertStatementCount(statistics, "/users/total-order-amount", 1);
+            // Page content plus its count query
+            assertStatementCount(statistics, "/users/by-order-count?min=0&size=1", 2);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    private void assertStatementCount(Statistics statistics, String url, long expected) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements for " + url);
+        assertEquals(0, statistics.getCollectionFetchCount(), "Lazy collection loads for " + url);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bookapi.dto;
+
+import com.example.bookapi.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCursorTest {
+
+    @Test
+    void encodeAndDecode_shouldRoundTrip() {
+        BookResponse book = BookResponse.builder().id(42L).title("A|B|C").author("Author").publishedYear(2000).build();
+        BookCursor cursor = BookCursor.start("title", "desc").after(book);
+
+        BookCursor decoded = BookCursor.decode(cursor.encode());
+
+        assertEquals("title", decoded.getSortBy());
+        assertEquals(Sort.Direction.DESC, decoded.getDirection());
+        assertEquals(42L, decoded.getLastId());
+        assertEquals("A|B|C", decoded.getLastValue());
+    }
+
+    @Test
+    void toSort_shouldAppendIdAsTieBreaker() {
+        assertEquals(Sort.by(Sort.Direction.ASC, "author", "id"), BookCursor.start("author", "asc").toSort());
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), BookCursor.start("id", "asc").toSort());
+    }
+
+    @Test
+    void toScrollPosition_shouldSeekOnSortKeyAndId() {
+        BookResponse book = BookResponse.builder().id(7L).title("T").author("A").build();
+        KeysetScrollPosition position = (KeysetScrollPosition) BookCursor.start("author", "asc").after(book).toScrollPosition();
+        assertEquals("A", position.getKeys().get("author"));
+        assertEquals(7L, position.getKeys().get("id"));
+        assertTrue(BookCursor.start("author", "asc").toScrollPosition().isInitial());
+    }
+
+    @Test
+    void invalidInput_shouldBeRejected() {
+        assertThrows(InvalidRequestException.class, () -> BookCursor.decode("%%%"));
+        assertThrows(InvalidRequestException.class, () -> BookCursor.start("publishedYear", "asc"));
+        assertThrows(InvalidRequestException.class, () -> BookCursor.start("id", "sideways"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.bookapi.encoding;
+
+import com.example.bookapi.dto.BookPageResponse;
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compression happens in Tomcat, so this runs on a real port, with its own catalog of known size
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:encoding-test")
+class BookEncodingIntegrationTest {
+    private static final String PAGE = "/books?page=0&size=50";
+    private static final String AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper json = JsonMapper.builder().build();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM book");
+        bookService.createAll(IntStream.range(0, 50)
+                .mapToObj(i -> new BookRequest("Title " + i, "Author " + i, 1950 + i))
+                .toList());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", AUTHORIZATION)
+                .header("Accept", accept);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private static String contentType(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type").orElseThrow();
+    }
+
+    @Test
+    void shouldServeJsonToClientsThatAcceptAnything() throws Exception {
+        HttpResponse<byte[]> response = get(PAGE, "*/*", null);
+
+        assertTrue(contentType(response).startsWith("application/json"));
+        assertEquals(50, json.readValue(response.body(), BookPageResponse.class).getContent().size());
+    }
+
+    @Test
+    void shouldServeTheSamePageAsCborAndSmile() throws Exception {
+        BookPageResponse expected = json.readValue(get(PAGE, "application/json", null).body(), BookPageResponse.class);
+
+        HttpResponse<byte[]> cbor = get(PAGE, "application/cbor", null);
+        HttpResponse<byte[]> smile = get(PAGE, "application/x-jackson-smile", null);
+
+        assertEquals("application/cbor", contentType(cbor));
+        assertEquals(expected, new CBORMapper().readValue(cbor.body(), BookPageResponse.class));
+        assertEquals("application/x-jackson-smile", contentType(smile));
+        assertEquals(expected, new SmileMapper().readValue(smile.body(), BookPageResponse.class));
+    }
+
+    @Test
+    void shouldServePagesAndListsAsProtobufWithThePublishedSchema() throws Exception {
+        BookPageResponse expected = json.readValue(get(PAGE, "application/json", null).body(), BookPageResponse.class);
+        String schemaSource = new String(get("/books/schema", "text/plain", null).body(), StandardCharsets.UTF_8);
+        NativeProtobufSchema schema = ProtobufSchemaLoader.std.parseNative(schemaSource);
+        ProtobufMapper protobuf = new ProtobufMapper();
+
+        HttpResponse<byte[]> page = get(PAGE, "application/x-protobuf", null);
+        HttpResponse<byte[]> list = get("/books", "application/x-protobuf", null);
+
+        assertEquals("application/x-protobuf", contentType(page));
+        assertEquals(expected, protobuf.readerFor(BookPageResponse.class)
+                .with(schema.forType("BookPageResponse")).readValue(page.body()));
+        ProtobufBookHttpMessageConverter.BookList books = protobuf.readerFor(ProtobufBookHttpMessageConverter.BookList.class)
+                .with(schema.forType("BookList")).readValue(list.body());
+        assertEquals(expected.getContent(), books.content());
+    }
+
+    @Test
+    void shouldOnlyWriteBookPayloadsAsProtobuf() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books/search?q=Title"))
+                .header("Authorization", AUTHORIZATION)
+                .header("Accept", "application/x-protobuf")
+                .build();
+        assertEquals(200, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        HttpRequest users = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/no-orders"))
+                .header("Authorization", AUTHORIZATION)
+                .header("Accept", "application/x-protobuf")
+                .build();
+        HttpResponse<byte[]> notAcceptable = client.send(users, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(406, notAcceptable.statusCode());
+        assertEquals(0, notAcceptable.body().length);
+        // Counted as the client error it is, not as a server failure
+        assertNotNull(meterRegistry.find("api.errors").tags("exception", "HttpMediaTypeNotAcceptableException",
+                "status", "406").counter());
+        assertNull(meterRegistry.find("api.errors").tags("exception", "HttpMediaTypeNotAcceptableException",
+                "status", "500").counter());
+    }
+
+    @Test
+    void shouldGzipLargeResponsesOnlyWhenAccepted() throws Exception {
+        byte[] plain = get(PAGE, "application/json", null).body();
+
+        HttpResponse<byte[]> gzipped = get(PAGE, "application/json", "gzip");
+        HttpResponse<byte[]> small = get("/books?page=0&size=1", "application/json", "gzip");
+
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(null));
+        // Tomcat does not compress responses with strong ETags, so catalog tags must stay weak
+        assertTrue(gzipped.headers().firstValue("ETag").orElseThrow().startsWith("W/"));
+        assertTrue(gzipped.body().length < plain.length / 2);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+        // Below the 2KB threshold
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+    }
+
+    @Test
+    void protobufSchemaShouldCoverEveryDtoProperty() throws IOException {
+        // Writing fails on properties missing from the schema, so a new DTO field must be added to books.proto
+        BookPageResponse page = json.readValue("{\"content\":[{\"id\":1,\"title\":\"Dune\",\"author\":\"Frank Herbert\","
+                + "\"publishedYear\":1965}],\"pageNumber\":0,\"pageSize\":1,\"totalElements\":1,\"totalPages\":1,"
+                + "\"hasNext\":false,\"hasPrevious\":false,\"first\":true,\"last\":true}", BookPageResponse.class);
+        NativeProtobufSchema schema = ProtobufSchemaLoader.std.parseNative(ProtobufBookHttpMessageConverter.SCHEMA);
+        ProtobufMapper protobuf = new ProtobufMapper();
+
+        byte[] bytes = protobuf.writer(schema.forType("BookPageResponse")).writeValueAsBytes(page);
+
+        assertEquals(page, protobuf.readerFor(BookPageResponse.class).with(schema.forType("BookPageResponse")).readValue(bytes));
+        assertEquals(List.of("BookResponse", "BookPageResponse", "BookList"), schema.getMessageNames());
+    }
+}
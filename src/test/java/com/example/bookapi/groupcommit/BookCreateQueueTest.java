@@ -0,0 +1,204 @@
+package com.example.bookapi.groupcommit;
+
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.exception.WriteQueueFullException;
+import com.example.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class BookCreateQueueTest {
+    private final BookService bookService = mock(BookService.class);
+    private final AtomicLong ids = new AtomicLong();
+
+    private BookCreateQueue queue(int batchSize, Duration linger, int capacity, Duration enqueueTimeout) {
+        return new BookCreateQueue(bookService, true, batchSize, linger, capacity, enqueueTimeout, Duration.ofSeconds(10));
+    }
+
+    private BookResponse created(BookRequest request) {
+        return new BookResponse(ids.incrementAndGet(), request.getTitle(), request.getAuthor(), request.getPublishedYear(), 0L);
+    }
+
+    private static BookRequest request(int i) {
+        return new BookRequest("Title " + i, "Author", 2000);
+    }
+
+    @Test
+    void shouldCreateConcurrentRequestsInSharedBatches() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(bookService.createAll(anyList())).thenAnswer(invocation -> {
+            List<BookRequest> requests = invocation.getArgument(0);
+            batchSizes.add(requests.size());
+            return requests.stream().map(this::created).toList();
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try (BookCreateQueue queue = queue(10, Duration.ofMillis(20), 100, Duration.ofSeconds(1))) {
+            List<Future<BookResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                BookRequest request = request(i);
+                results.add(callers.submit(() -> queue.create(request)));
+            }
+
+            for (int i = 0; i < 40; i++) {
+                // Each caller gets its own book back
+                assertEquals("Title " + i, results.get(i).get(10, TimeUnit.SECONDS).getTitle());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(40, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.size() < 40, "Expected shared batches, got " + batchSizes);
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 10));
+        verify(bookService, never()).create(any());
+    }
+
+    @Test
+    void shouldGiveEachCallerItsOwnErrorWhenABatchFails() throws Exception {
+        when(bookService.createAll(anyList())).thenThrow(new IllegalStateException("batch"));
+        when(bookService.create(any())).thenAnswer(invocation -> {
+            BookRequest request = invocation.getArgument(0);
+            if (request.getTitle().equals("Title 1")) {
+                throw new IllegalArgumentException("bad book");
+            }
+            return created(request);
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try (BookCreateQueue queue = queue(10, Duration.ofMillis(50), 100, Duration.ofSeconds(1))) {
+            List<Future<BookResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                BookRequest request = request(i);
+                results.add(callers.submit(() -> queue.create(request)));
+            }
+
+            assertEquals("Title 0", results.get(0).get(10, TimeUnit.SECONDS).getTitle());
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> results.get(1).get(10, TimeUnit.SECONDS));
+            // The exception a direct create throws, not a wrapper
+            assertInstanceOf(IllegalArgumentException.class, failed.getCause());
+            assertEquals("bad book", failed.getCause().getMessage());
+            assertEquals("Title 2", results.get(2).get(10, TimeUnit.SECONDS).getTitle());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectCreatesWhileTheQueueStaysFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.createAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            List<BookRequest> requests = invocation.getArgument(0);
+            return requests.stream().map(this::created).toList();
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (BookCreateQueue queue = queue(1, Duration.ZERO, 1, Duration.ofMillis(50))) {
+            Future<BookResponse> first = callers.submit(() -> queue.create(request(0)));
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            Future<BookResponse> queued = callers.submit(() -> queue.create(request(1)));
+            // The writer is blocked, so the second request waits in the queue
+            while (queue.getQueueDepth() == 0) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(WriteQueueFullException.class, () -> queue.create(request(2)));
+
+            release.countDown();
+            assertEquals("Title 0", first.get(10, TimeUnit.SECONDS).getTitle());
+            assertEquals("Title 1", queued.get(10, TimeUnit.SECONDS).getTitle());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldKeepWritingAfterABatchFailsWithAnError() throws Exception {
+        when(bookService.createAll(anyList()))
+                .thenThrow(new StackOverflowError("writer"))
+                .thenAnswer(invocation -> {
+                    List<BookRequest> requests = invocation.getArgument(0);
+                    return requests.stream().map(this::created).toList();
+                });
+        try (BookCreateQueue queue = queue(10, Duration.ZERO, 100, Duration.ofSeconds(1))) {
+            assertThrows(StackOverflowError.class, () -> queue.create(request(0)));
+
+            assertEquals("Title 1", queue.create(request(1)).getTitle());
+        }
+    }
+
+    @Test
+    void shouldAnswerWithWriteQueueFullWhenTheWriterDoesNotTakeTheRequestInTime() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.createAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            List<BookRequest> requests = invocation.getArgument(0);
+            return requests.stream().map(this::created).toList();
+        });
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try (BookCreateQueue queue = new BookCreateQueue(bookService, true, 1, Duration.ZERO, 100,
+                Duration.ofSeconds(1), Duration.ofMillis(100))) {
+            Future<BookResponse> first = callers.submit(() -> queue.create(request(0)));
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            // Timed out while still queued, so the writer skips it
+            assertThrows(WriteQueueFullException.class, () -> queue.create(request(1)));
+
+            release.countDown();
+            assertEquals("Title 0", first.get(10, TimeUnit.SECONDS).getTitle());
+            assertEquals("Title 2", queue.create(request(2)).getTitle());
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(bookService, never()).createAll(argThat(requests -> requests.contains(request(1))));
+    }
+
+    @Test
+    void shouldWaitForACommitThatRunsPastTheResultTimeout() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.createAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            List<BookRequest> requests = invocation.getArgument(0);
+            return requests.stream().map(this::created).toList();
+        });
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try (BookCreateQueue queue = new BookCreateQueue(bookService, true, 1, Duration.ZERO, 100,
+                Duration.ofSeconds(1), Duration.ofMillis(50))) {
+            Future<BookResponse> result = callers.submit(() -> queue.create(request(0)));
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            Thread.sleep(300);
+            // The book is being committed, so a 503 now would make a retry create it twice
+            assertFalse(result.isDone());
+
+            release.countDown();
+            assertEquals("Title 0", result.get(10, TimeUnit.SECONDS).getTitle());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldCallTheServiceDirectlyWhenDisabled() {
+        BookRequest request = request(0);
+        when(bookService.create(request)).thenReturn(created(request));
+        try (BookCreateQueue queue = new BookCreateQueue(bookService, false, 100, Duration.ofMillis(2), 100, Duration.ofSeconds(1),
+                Duration.ofSeconds(1))) {
+            assertEquals("Title 0", queue.create(request).getTitle());
+        }
+        verify(bookService).create(request);
+        verify(bookService, never()).createAll(anyList());
+    }
+}
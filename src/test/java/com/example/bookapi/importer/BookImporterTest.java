@@ -0,0 +1,167 @@
+package com.example.bookapi.importer;
+
+import com.example.bookapi.dto.BookImportSummary;
+import com.example.bookapi.exception.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Year;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Imports add many books, so this class gets its own database; batches of 2 exercise checkpointing
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import-test",
+        "book-api.import.directory=target/import-test",
+        "book-api.import.batch-size=2"})
+@AutoConfigureMockMvc
+class BookImporterTest {
+    private static final Path DIRECTORY = Path.of("target/import-test");
+
+    @Autowired
+    private BookImporter bookImporter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(DIRECTORY);
+        jdbcTemplate.update("DELETE FROM book");
+    }
+
+    private int books() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Integer.class);
+    }
+
+    @Test
+    void shouldImportValidCsvRowsAndReportRejects() throws IOException {
+        Path file = DIRECTORY.resolve("books.csv");
+        Files.writeString(file, String.join("\n",
+                "\uFEFFauthor,Title,published_year,notes",
+                "Frank Herbert,Dune,1965,classic",
+                "\"Tolkien, J.R.R.\",\"The \"\"Hobbit\"\"\",1937,",
+                ",No Author,2000,",
+                "Someone,Too Old,1400,",
+                "Someone,From The Future," + (Year.now().getValue() + 1) + ",",
+                "",
+                "Someone,Bad Year,abc,",
+                "Someone,No Year,,",
+                "Someone,\"Unterminated,1999"));
+
+        BookImportSummary summary = bookImporter.importFile(file, null, true);
+
+        assertEquals("CSV", summary.getFormat());
+        assertEquals(3, summary.getImported());
+        assertEquals(5, summary.getRejected());
+        assertEquals(10, summary.getLines());
+        assertEquals(Files.size(file), summary.getEndOffset());
+        assertEquals(List.of(4L, 5L, 6L, 8L, 10L), summary.getRejects().stream().map(BookImportSummary.Reject::getLine).toList());
+        assertTrue(summary.getRejects().get(0).getError().contains("author"));
+        assertTrue(summary.getRejects().get(3).getError().contains("not a number"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM book WHERE title = 'The \"Hobbit\"' AND author = 'Tolkien, J.R.R.' AND published_year = 1937",
+                Integer.class));
+        assertEquals(3, books());
+        assertFalse(Files.exists(BookImporter.checkpointPath(file)));
+    }
+
+    @Test
+    void shouldImportNdjsonAndRejectMalformedLines() throws IOException {
+        Path file = DIRECTORY.resolve("books.ndjson");
+        Files.writeString(file, String.join("\r\n",
+                "{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"publishedYear\":1965}",
+                "{\"title\":\"Broken\",",
+                "null",
+                "{\"title\":\"Emma\",\"author\":\"Jane Austen\"}",
+                ""));
+
+        BookImportSummary summary = bookImporter.importFile(file, null, true);
+
+        assertEquals("NDJSON", summary.getFormat());
+        assertEquals(2, summary.getImported());
+        assertEquals(2, summary.getRejected());
+        assertTrue(summary.getRejects().get(0).getError().startsWith("Malformed JSON"));
+        assertEquals("Book must not be null", summary.getRejects().get(1).getError());
+        assertEquals(2, books());
+    }
+
+    @Test
+    void shouldResumeInterruptedImportFromCheckpoint() throws IOException {
+        Path file = DIRECTORY.resolve("resume.csv");
+        String committed = "title,author,publishedYear\nA,Author,2001\nB,Author,2002\n";
+        // A line over the 1 MB limit aborts the run after the first batch commits
+        Files.writeString(file, committed + "C,Author,2003\n" + "x".repeat(2 << 20) + ",Author,2004\n");
+
+        assertThrows(IOException.class, () -> bookImporter.importFile(file, ImportFormat.CSV, true));
+        assertEquals(2, books());
+        Path checkpoint = BookImporter.checkpointPath(file);
+        assertEquals(committed.length(), BookImporter.Checkpoint.read(checkpoint).offset());
+
+        Files.writeString(file, committed + "C,Author,2003\nD,Author,2004\nE,Author,2005\n");
+        BookImportSummary summary = bookImporter.importFile(file, ImportFormat.CSV, true);
+
+        assertTrue(summary.isResumed());
+        assertEquals(committed.length(), summary.getStartOffset());
+        assertEquals(5, summary.getImported());
+        assertEquals(6, summary.getLines());
+        assertEquals(5, books());
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    @Test
+    void shouldIgnoreCheckpointWhenNotResuming() throws IOException {
+        Path file = DIRECTORY.resolve("restart.csv");
+        Files.writeString(file, "title,author\nA,Author\nB,Author\nC,Author\n");
+        new BookImporter.Checkpoint(13, 2, 1, 0).write(BookImporter.checkpointPath(file));
+
+        BookImportSummary summary = bookImporter.importFile(file, null, false);
+
+        assertFalse(summary.isResumed());
+        assertEquals(3, summary.getImported());
+        assertEquals(3, books());
+    }
+
+    @Test
+    void shouldRejectUnknownFormats() {
+        assertThrows(InvalidRequestException.class, () -> ImportFormat.of("xml"));
+        assertThrows(InvalidRequestException.class, () -> ImportFormat.fromFileName(Path.of("books.txt")));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.fromFileName(Path.of("books.jsonl")));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void importEndpointShouldRequireAdmin() throws Exception {
+        mockMvc.perform(post("/admin/import").param("file", "books.csv"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void importEndpointShouldOnlyReadFromImportDirectory() throws Exception {
+        Files.writeString(DIRECTORY.resolve("endpoint.data"), "{\"title\":\"Dune\",\"author\":\"Frank Herbert\"}\n");
+
+        mockMvc.perform(post("/admin/import").param("file", "endpoint.data").param("format", "ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(0));
+        mockMvc.perform(post("/admin/import").param("file", "../../pom.xml").param("format", "csv"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/admin/import").param("file", "missing.csv"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bookapi.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffsetLineReaderTest {
+    private static OffsetLineReader reader(String content) {
+        return new OffsetLineReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 1024);
+    }
+
+    @Test
+    void shouldTrackByteOffsetsAcrossLineEndingsAndMultibyteCharacters() throws IOException {
+        OffsetLineReader reader = reader("Brontë\r\nplain\nlast");
+
+        assertEquals("Brontë", reader.readLine());
+        assertEquals(9, reader.offset()); // ë is two bytes, plus \r\n
+        assertEquals("plain", reader.readLine());
+        assertEquals(15, reader.offset());
+        assertEquals("last", reader.readLine());
+        assertEquals(19, reader.offset());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void shouldSkipToOffset() throws IOException {
+        OffsetLineReader reader = reader("header\nskipped\nwanted\n");
+        assertEquals("header", reader.readLine());
+
+        reader.skipTo(15);
+
+        assertEquals("wanted", reader.readLine());
+        assertNull(reader.readLine());
+        assertThrows(EOFException.class, () -> reader(" ").skipTo(1 << 20));
+    }
+
+    @Test
+    void shouldRejectOverlongLines() {
+        OffsetLineReader reader = reader("x".repeat(2048) + "\n");
+
+        assertThrows(IOException.class, reader::readLine);
+    }
+}
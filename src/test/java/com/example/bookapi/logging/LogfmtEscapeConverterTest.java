@@ -0,0 +1,51 @@
+package com.example.bookapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.KeyValuePair;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LogfmtEscapeConverterTest {
+    // The message and key-value part of the production pattern in logback-spring.xml
+    private static String format(String message, List<KeyValuePair> pairs) {
+        LoggerContext context = new LoggerContext();
+        PatternLayout layout = new PatternLayout();
+        layout.setContext(context);
+        layout.getInstanceConverterMap().put("logfmt", LogfmtEscapeConverter.class.getName());
+        layout.getInstanceConverterMap().put("logfmtKvp", LogfmtKeyValueConverter.class.getName());
+        layout.setPattern("msg=\"%logfmt(%m)\" %logfmtKvp");
+        layout.start();
+        Logger logger = context.getLogger("test");
+        LoggingEvent event = new LoggingEvent(Logger.FQCN, logger, Level.INFO, message, null, null);
+        pairs.forEach(event::addKeyValuePair);
+        return layout.doLayout(event);
+    }
+
+    @Test
+    void shouldKeepAMessageWithQuotesAndLineBreaksOnOneLineInsideItsValue() {
+        assertEquals("msg=\"Book \\\"Dune\\\"\\nlevel=ERROR forged\\\\\" ",
+                format("Book \"Dune\"\nlevel=ERROR forged\\", List.of()));
+    }
+
+    @Test
+    void shouldEscapeKeyValuePairs() {
+        assertEquals("msg=\"Book created\" bookId=\"7\" title=\"The \\\"Best\\\"\\r\\n\\tBook\" author=\"null\"",
+                format("Book created", List.of(new KeyValuePair("bookId", 7L),
+                        new KeyValuePair("title", "The \"Best\"\r\n\tBook"), new KeyValuePair("author", null))));
+    }
+
+    @Test
+    void shouldNotCopyValuesThatNeedNoEscaping() {
+        String value = "Plain title 42";
+
+        assertSame(value, LogfmtEscapeConverter.escape(value));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bookapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampledSqlLogListenerTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SampledSqlLogListener.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo info = new ExecutionInfo();
+        info.setElapsedTime(elapsedMillis);
+        info.setSuccess(true);
+        return info;
+    }
+
+    private static QueryInfo query() throws Exception {
+        QueryInfo query = new QueryInfo("select * from book where author = ? and published_year = ?");
+        query.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[]{1, "Tolkien"}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                        new Object[]{2, Types.INTEGER})));
+        return query;
+    }
+
+    private static Map<String, Object> keyValues(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream().collect(Collectors.toMap(kv -> kv.key, kv -> kv.value));
+    }
+
+    @Test
+    void slowStatementShouldBeLoggedWithBindParameters() throws Exception {
+        SampledSqlLogListener listener = new SampledSqlLogListener(0, Duration.ofMillis(100));
+
+        listener.afterQuery(execution(150), List.of(query()));
+
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        Map<String, Object> kv = keyValues(event);
+        assertEquals(150L, kv.get("durationMs"));
+        assertEquals("select * from book where author = ? and published_year = ?", kv.get("sql"));
+        assertEquals("(Tolkien,NULL)", kv.get("params"));
+    }
+
+    @Test
+    void fastStatementShouldOnlyBeSampled() throws Exception {
+        new SampledSqlLogListener(0, Duration.ofMillis(100)).afterQuery(execution(5), List.of(query()));
+        assertTrue(appender.list.isEmpty());
+
+        new SampledSqlLogListener(1, Duration.ofMillis(100)).afterQuery(execution(5), List.of(query()));
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.INFO, event.getLevel());
+        assertFalse(event.getKeyValuePairs().stream().map(kv -> kv.key).anyMatch("params"::equals));
+    }
+
+    @Test
+    void nothingShouldBeLoggedWhenLevelIsDisabled() throws Exception {
+        logger.setLevel(Level.ERROR);
+
+        new SampledSqlLogListener(1, Duration.ofMillis(100)).afterQuery(execution(500), List.of(query()));
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    @Test
+    void batchParametersShouldBeCapped() throws Exception {
+        QueryInfo batch = new QueryInfo("insert into book (title, id) values (?, ?)");
+        for (int i = 0; i < 50; i++) {
+            batch.getParametersList().add(List.of(new ParameterSetOperation(
+                    PreparedStatement.class.getMethod("setLong", int.class, long.class), new Object[]{1, (long) i})));
+        }
+
+        String params = SampledSqlLogListener.parameters(List.of(batch));
+
+        assertEquals(10, params.split(", ").length);
+        assertTrue(params.startsWith("(0), (1)"));
+    }
+}
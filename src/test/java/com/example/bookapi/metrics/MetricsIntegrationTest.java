@@ -0,0 +1,123 @@
+package com.example.bookapi.metrics;
+
+import com.example.bookapi.dto.BookRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private DistributionSummary statements(String method, String uri) {
+        return DistributionSummary.builder("hibernate.request.statements")
+                .tag("method", method).tag("uri", uri).register(meterRegistry);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldRecordRequestServiceAndRepositoryMetrics() throws Exception {
+        mockMvc.perform(post("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        BookRequest.builder().title("Metrics").author("Author").publishedYear(2001).build())))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/books").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/books/987654"))
+                .andExpect(status().isNotFound());
+
+        // Tests run with a simple registry (no Prometheus export), so check the meters themselves
+        assertTrue(meterRegistry.get("http.server.requests").tag("uri", "/books/{id}").timer().count() > 0);
+        assertTrue(meterRegistry.get("book.service").tag("method", "findAllPaginated").timer().count() > 0);
+        assertTrue(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "BookRepository").timers().size() > 0);
+        assertTrue(meterRegistry.get("repository.rows").tag("repository", "BookRepository").tag("method", "findAll")
+                .summary().count() > 0);
+        assertTrue(meterRegistry.get("hibernate.request.statements").tag("method", "GET").tag("uri", "/books")
+                .summary().count() > 0);
+        assertTrue(meterRegistry.get("hibernate.request.flushes").tag("method", "POST").tag("uri", "/books")
+                .summary().totalAmount() > 0);
+        assertTrue(meterRegistry.get("api.errors").tag("exception", "NoSuchElementException").tag("status", "404")
+                .counter().count() > 0);
+    }
+
+    @Test
+    @WithMockUser
+    void shouldCountStatementsPerRequest() throws Exception {
+        DistributionSummary summary = statements("GET", "/books/{id}");
+        long count = summary.count();
+        double total = summary.totalAmount();
+
+        mockMvc.perform(get("/books/987655"))
+                .andExpect(status().isNotFound());
+
+        assertEquals(count + 1, summary.count());
+        // The id filter answers unknown ids without a select
+        assertEquals(total, summary.totalAmount());
+    }
+
+    @Test
+    @WithMockUser
+    void conditionalGetsOfUnchangedBooksShouldNotQuery() throws Exception {
+        String created = mockMvc.perform(post("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                BookRequest.builder().title("Polled").author("Author").publishedYear(2001).build())))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+        String pageTag = mockMvc.perform(get("/books").param("page", "0").param("size", "5"))
+                .andReturn().getResponse().getHeader("ETag");
+        String bookTag = mockMvc.perform(get("/books/" + id)).andReturn().getResponse().getHeader("ETag");
+        DistributionSummary pages = statements("GET", "/books");
+        DistributionSummary books = statements("GET", "/books/{id}");
+        double pageStatements = pages.totalAmount();
+        double bookStatements = books.totalAmount();
+
+        mockMvc.perform(get("/books").param("page", "0").param("size", "5").header("If-None-Match", pageTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/books/" + id).header("If-None-Match", bookTag))
+                .andExpect(status().isNotModified());
+
+        // The page tag comes from the catalog generation, and the book from the cache
+        assertEquals(pageStatements, pages.totalAmount());
+        assertEquals(bookStatements, books.totalAmount());
+    }
+
+    @Test
+    void rowsShouldReflectResultShape() {
+        assertEquals(3, RepositoryMetricsAspect.rows(List.class, List.of(1, 2, 3)));
+        assertEquals(2, RepositoryMetricsAspect.rows(PageImpl.class, new PageImpl<>(List.of(1, 2))));
+        assertEquals(1, RepositoryMetricsAspect.rows(Optional.class, Optional.of(1)));
+        assertEquals(0, RepositoryMetricsAspect.rows(Optional.class, Optional.empty()));
+        assertEquals(1, RepositoryMetricsAspect.rows(Object.class, new Object()));
+        assertEquals(0, RepositoryMetricsAspect.rows(Object.class, null));
+        assertEquals(-1, RepositoryMetricsAspect.rows(long.class, 5L));
+        assertEquals(-1, RepositoryMetricsAspect.rows(void.class, null));
+        assertEquals(-1, RepositoryMetricsAspect.rows(Stream.class, Stream.empty()));
+    }
+}
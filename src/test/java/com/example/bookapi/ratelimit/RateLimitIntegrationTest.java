@@ -0,0 +1,86 @@
+package com.example.bookapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Query limits low enough to exhaust in a test, and slow enough not to refill during one
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:rate-limit-test",
+        "book-api.rate-limit.query.rate=0.01", "book-api.rate-limit.query.burst=2",
+        "book-api.rate-limit.max-concurrent-queries=1",
+        "book-api.rate-limit.failed-authentication.rate=0.01", "book-api.rate-limit.failed-authentication.burst=2"})
+@AutoConfigureMockMvc
+class RateLimitIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Test
+    void shouldAnswer429WithRetryAfterOnceAPrincipalSpendsItsBurst() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/books").with(httpBasic("user", "password")))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/books").with(httpBasic("user", "password")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"))
+                .andExpect(jsonPath("$.status", is(429)))
+                .andExpect(jsonPath("$.message", is("Rate limit exceeded for query requests")));
+        // Cheap reads draw from their own bucket
+        mockMvc.perform(get("/books/schema").with(httpBasic("user", "password")))
+                .andExpect(status().isOk());
+        // Other principals keep their own budget
+        mockMvc.perform(get("/books").with(httpBasic("admin", "password")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldRefuseCredentialsFromAnAddressThatKeepsFailingToAuthenticate() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/auth/token").with(httpBasic("user", "wrong")).with(from("10.0.0.1")))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Refused before the password is checked, so even the right one gets no answer
+        mockMvc.perform(get("/books/schema").with(httpBasic("user", "password")).with(from("10.0.0.1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"))
+                .andExpect(jsonPath("$.message", is("Too many failed authentication attempts")));
+        mockMvc.perform(get("/books/schema").with(httpBasic("user", "password")).with(from("10.0.0.2")))
+                .andExpect(status().isOk());
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    @Test
+    void shouldAnswer503WithRetryAfterWhileTheQueryBulkheadIsFull() throws Exception {
+        rateLimiter.tryEnterQuery();
+        try {
+            mockMvc.perform(get("/users/total-order-amount"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.message", is("Too many concurrent queries")));
+        } finally {
+            rateLimiter.exitQuery();
+        }
+
+        mockMvc.perform(get("/users/total-order-amount"))
+                .andExpect(status().isOk());
+    }
+}
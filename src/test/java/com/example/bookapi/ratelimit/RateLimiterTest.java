@@ -0,0 +1,130 @@
+package com.example.bookapi.ratelimit;
+
+import com.example.bookapi.ratelimit.RateLimiter.EndpointClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static RateLimiter limiter(boolean enabled, int maxConcurrentQueries) {
+        return new RateLimiter(new SimpleMeterRegistry(), enabled, 10, 2, 1, 1, 10, 2, 1, 2, maxConcurrentQueries, 1000);
+    }
+
+    @Test
+    void bucketShouldAllowItsBurstAndThenRefillAtItsRate() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 0;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryTake(now));
+        }
+        // The next token is a tenth of a second away
+        assertEquals(SECOND / 10, bucket.tryTake(now));
+        assertEquals(SECOND / 20, bucket.tryTake(now + SECOND / 20));
+        assertEquals(0, bucket.tryTake(now + SECOND / 10));
+        assertTrue(bucket.tryTake(now + SECOND / 10) > 0);
+
+        // Idle time refills the bucket, but never beyond its burst
+        now += 10 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryTake(now));
+        }
+        assertTrue(bucket.tryTake(now) > 0);
+    }
+
+    @Test
+    void bucketShouldHandOutExactlyItsBurstToConcurrentCallers() throws Exception {
+        TokenBucket bucket = new TokenBucket(0.001, 1000);
+        long now = System.nanoTime();
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryTake(now) == 0) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1000, taken.get());
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerPrincipalAndEndpointClass() {
+        RateLimiter limiter = limiter(true, 1);
+
+        assertEquals(0, limiter.tryAcquire("alice", EndpointClass.QUERY));
+        assertTrue(limiter.tryAcquire("alice", EndpointClass.QUERY) > 0);
+        // Spending the query budget leaves alice's reads and bob's queries alone
+        assertEquals(0, limiter.tryAcquire("alice", EndpointClass.READ));
+        assertEquals(0, limiter.tryAcquire("bob", EndpointClass.QUERY));
+    }
+
+    @Test
+    void failedAuthenticationsShouldBlockTheirAddressOnlyOnceItsBurstIsSpent() {
+        RateLimiter limiter = limiter(true, 1);
+
+        // Checking never spends a token; only failures do
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.checkAuthentication("10.0.0.1"));
+        }
+        limiter.recordFailedAuthentication("10.0.0.1");
+        assertEquals(0, limiter.checkAuthentication("10.0.0.1"));
+        limiter.recordFailedAuthentication("10.0.0.1");
+        assertTrue(limiter.checkAuthentication("10.0.0.1") > 0);
+        assertEquals(0, limiter.checkAuthentication("10.0.0.2"));
+    }
+
+    @Test
+    void bulkheadShouldRejectQueriesBeyondTheLimitUntilOneExits() {
+        RateLimiter limiter = limiter(true, 2);
+
+        assertTrue(limiter.tryEnterQuery());
+        assertTrue(limiter.tryEnterQuery());
+        assertFalse(limiter.tryEnterQuery());
+        assertEquals(2, limiter.getActiveQueries());
+
+        limiter.exitQuery();
+        assertTrue(limiter.tryEnterQuery());
+    }
+
+    @Test
+    void shouldAdmitEverythingWhenDisabled() {
+        RateLimiter limiter = limiter(false, 1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.tryAcquire("alice", EndpointClass.QUERY));
+            assertTrue(limiter.tryEnterQuery());
+        }
+    }
+
+    @Test
+    void shouldClassifyRequestsByWhatTheyCostTheDatabase() {
+        assertEquals(EndpointClass.READ, EndpointClass.classify("GET", "/books/42"));
+        assertEquals(EndpointClass.READ, EndpointClass.classify("GET", "/books/changes/stream"));
+        assertEquals(EndpointClass.QUERY, EndpointClass.classify("GET", "/books"));
+        assertEquals(EndpointClass.QUERY, EndpointClass.classify("GET", "/books/export"));
+        assertEquals(EndpointClass.QUERY, EndpointClass.classify("GET", "/users/total-order-amount"));
+        assertEquals(EndpointClass.WRITE, EndpointClass.classify("POST", "/books"));
+        assertEquals(EndpointClass.WRITE, EndpointClass.classify("DELETE", "/books/42"));
+        assertNull(EndpointClass.classify("GET", "/actuator/health"));
+        assertNull(EndpointClass.classify("OPTIONS", "/books"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.bookapi.replica;
+
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.service.BookService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Replicas are copied from the primary, so this class gets its own primary and replica databases
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-test",
+        "spring.jpa.open-in-view=false",
+        "book-api.datasource.replica.urls=jdbc:h2:mem:replica-test-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:replica-test-2;DB_CLOSE_DELAY=-1",
+        "book-api.datasource.replica.sync-interval=50ms",
+        "book-api.datasource.replica.max-lag=5s"})
+class ReplicaRoutingTest {
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private ReplicaSet replicaSet;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the replicas");
+            Thread.sleep(20);
+        }
+    }
+
+    private void awaitReplicasCaughtUp() throws InterruptedException {
+        await(() -> replicaSet.getReplicas().stream().allMatch(replica -> replica.lag().compareTo(Duration.ofSeconds(5)) <= 0));
+    }
+
+    private double routes(String pool) {
+        return meterRegistry.get("datasource.read.routes").tag("pool", pool).counter().count();
+    }
+
+    @Test
+    void shouldCopyCommittedChangesToEveryReplica() throws InterruptedException {
+        awaitReplicasCaughtUp();
+        BookResponse created = bookService.create(new BookRequest("Dune", "Frank Herbert", 1965));
+        BookResponse deleted = bookService.create(new BookRequest("Gone", "Nobody", 2000));
+        bookService.update(created.getId(), new BookRequest("Dune Messiah", "Frank Herbert", 1969), null);
+        bookService.delete(deleted.getId(), null);
+
+        for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(replica.getPool());
+            await(() -> jdbcTemplate.queryForList("SELECT title FROM book WHERE id IN (?, ?)", String.class,
+                    created.getId(), deleted.getId()).equals(List.of("Dune Messiah")));
+        }
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplicas() throws InterruptedException {
+        awaitReplicasCaughtUp();
+        double primaryBefore = routes("primary");
+        double replicasBefore = routes("replica-1") + routes("replica-2");
+
+        for (int i = 0; i < 4; i++) {
+            bookService.findAllPaginated(PageRequest.of(0, 10));
+        }
+
+        assertEquals(primaryBefore, routes("primary"));
+        assertEquals(replicasBefore + 4, routes("replica-1") + routes("replica-2"));
+    }
+
+    @Test
+    void shouldReadOwnWritesByIdRightAfterAnUpdate() {
+        BookResponse created = bookService.create(new BookRequest("Emma", "Jane Austen", 1815));
+        bookService.findById(created.getId());
+
+        bookService.update(created.getId(), new BookRequest("Emma", "Jane Austen", 1816), null);
+
+        assertEquals(1816, bookService.findById(created.getId()).getPublishedYear());
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhileReplicasLag() throws SQLException {
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl("jdbc:h2:mem:routing-primary");
+        primary.setPoolName("primary");
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl("jdbc:h2:mem:routing-replica");
+        replica.setPoolName("replica-1");
+        // Never started, so the replica has not been copied yet and counts as infinitely behind
+        try (ReplicaSet lagging = new ReplicaSet(primary, List.of(replica), Duration.ofSeconds(1))) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagging, Duration.ofSeconds(1), registry);
+
+            try (Connection connection = routing.getConnection()) {
+                assertTrue(connection.getMetaData().getURL().contains("routing-primary"));
+            }
+            assertEquals(1, registry.get("datasource.read.routes").tag("pool", "primary").counter().count());
+            assertEquals(0, registry.get("datasource.read.routes").tag("pool", "replica-1").counter().count());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bookapi.repository;
+
+import com.example.bookapi.dto.BookFilter;
+import com.example.bookapi.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BookRepositoryTest {
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.save(Book.builder().title("Dune").author("Herbert").publishedYear(1965).build());
+        bookRepository.save(Book.builder().title("Emma").author("Austen").publishedYear(1815).build());
+        bookRepository.save(Book.builder().title("Persuasion").author("Austen").publishedYear(1817).build());
+    }
+
+    @Test
+    void findAllMatchingFilter() {
+        BookFilter filter = BookFilter.builder().author("Austen").yearFrom(1816).build();
+        List<Book> books = bookRepository.findAll(BookSpecifications.matching(filter));
+        assertEquals(1, books.size());
+        assertEquals("Persuasion", books.get(0).getTitle());
+    }
+
+    @Test
+    void emptyFilterMatchesAllBooks() {
+        assertEquals(3, bookRepository.findAll(BookSpecifications.matching(new BookFilter())).size());
+    }
+
+    @Test
+    void filteredQueriesUseIndexes() {
+        assertPlanUsesIndex("SELECT * FROM book WHERE author = 'Austen' ORDER BY id", "IDX_BOOK_AUTHOR");
+        assertPlanUsesIndex("SELECT * FROM book WHERE author = 'Austen' AND published_year >= 1816", "IDX_BOOK_AUTHOR_YEAR");
+        assertPlanUsesIndex("SELECT * FROM book WHERE published_year BETWEEN 1800 AND 1900", "IDX_BOOK_YEAR_ID");
+        assertPlanUsesIndex("SELECT * FROM book WHERE title LIKE 'Du%' ESCAPE '\\'", "IDX_BOOK_TITLE_ID");
+    }
+
+    private void assertPlanUsesIndex(String sql, String index) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertTrue(plan.toUpperCase().contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bookapi.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Seed data is inserted without going through OrderService
+        userRepository.rebuildOrderTotals();
+    }
+
+    @Test
+    void orderCountQueriesUseMaintainedCounter() {
+        assertEquals(2, userRepository.findUsersWithMoreThan3Orders().size());
+        assertEquals("carol", userRepository.findUsersWithNoOrders().get(0).getUsername());
+        assertEquals(3, userRepository.findByOrderCountBetween(2, 5, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void adjustOrderTotalsShouldUpdateCounterAndSum() {
+        Long carolId = userRepository.findUsersWithNoOrders().get(0).getId();
+        userRepository.adjustOrderTotals(carolId, 1, 9.5);
+        assertTrue(userRepository.findUsersWithNoOrders().isEmpty());
+        assertTrue(userRepository.findTotalOrderAmountPerUser().stream()
+                .anyMatch(t -> t.getUsername().equals("carol") && t.getTotalAmount() == 9.5));
+    }
+
+    @Test
+    void orderCountQueriesUseIndex() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT * FROM app_user WHERE order_count > 3", String.class);
+        assertTrue(plan.toUpperCase().contains("IDX_USER_ORDER_COUNT"), plan);
+    }
+}
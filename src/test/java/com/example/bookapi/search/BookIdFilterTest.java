@@ -0,0 +1,73 @@
+package com.example.bookapi.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookIdFilterTest {
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:id-filter-test;DB_CLOSE_DELAY=-1"));
+    private final BookIdFilter filter = new BookIdFilter(jdbcTemplate);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS book (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.update("DELETE FROM book");
+    }
+
+    private void load(Long... ids) {
+        for (Long id : ids) {
+            jdbcTemplate.update("INSERT INTO book (id) VALUES (?)", id);
+        }
+        filter.load();
+    }
+
+    @Test
+    void shouldAnswerMaybeUntilLoaded() {
+        assertTrue(filter.mightExist(42));
+        load();
+        assertFalse(filter.mightExist(42));
+    }
+
+    @Test
+    void shouldTrackLoadedAddedAndRemovedIds() {
+        load(1L, 63L, 64L, 65_535L, 65_536L);
+        filter.add(200_000L);
+        filter.remove(64L);
+
+        assertTrue(filter.mightExist(1));
+        assertTrue(filter.mightExist(63));
+        assertFalse(filter.mightExist(64));
+        assertTrue(filter.mightExist(65_535));
+        assertTrue(filter.mightExist(65_536));
+        assertTrue(filter.mightExist(200_000));
+        assertFalse(filter.mightExist(2));
+        assertFalse(filter.mightExist(100_000));
+        assertFalse(filter.mightExist(0));
+        assertFalse(filter.mightExist(-1));
+        // Past the highest id
+        assertFalse(filter.mightExist(200_001));
+        assertFalse(filter.mightExist(Long.MAX_VALUE));
+    }
+
+    @Test
+    void reloadShouldNotForgetIdsAddedSinceTheScanStarted() {
+        filter.add(7L);
+        load(3L);
+
+        assertTrue(filter.mightExist(3));
+        assertTrue(filter.mightExist(7));
+    }
+
+    @Test
+    void idsBeyondTheBitmapShouldAlwaysMightExist() {
+        load(5L);
+        filter.add(1L << 40);
+
+        assertTrue(filter.mightExist(1L << 35));
+        assertTrue(filter.mightExist(1L << 40));
+        assertFalse(filter.mightExist((1L << 40) + 1));
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.bookapi.search;
+
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.model.Book;
+import com.example.bookapi.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookSearchIndexTest {
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(null, null, null);
+        index.index(book(1L, "The Hobbit", "J.R.R. Tolkien"));
+        index.index(book(2L, "The Lord of the Rings", "J.R.R. Tolkien"));
+        index.index(book(3L, "Clean Code", "Robert C. Martin"));
+        index.index(book(4L, "Clean Architecture", "Robert C. Martin"));
+    }
+
+    @Test
+    void tokenize_shouldLowercaseAndSplitOnNonAlphanumerics() {
+        assertEquals(List.of("j", "r", "r", "tolkien", "s", "2nd", "edition"),
+                BookSearchIndex.tokenize("J.R.R. Tolkien's 2nd-Edition"));
+    }
+
+    @Test
+    void search_shouldRankBetterMatchesFirst() {
+        Page<BookResponse> page = index.search("clean code", PageRequest.of(0, 10));
+        assertEquals(2, page.getTotalElements());
+        assertEquals("Clean Code", page.getContent().get(0).getTitle());
+        assertEquals("Clean Architecture", page.getContent().get(1).getTitle());
+    }
+
+    @Test
+    void search_shouldMatchLastTermAsPrefix() {
+        Page<BookResponse> page = index.search("tolk", PageRequest.of(0, 10));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(0, index.search("tolk hobbit", PageRequest.of(0, 10)).getContent().stream()
+                .filter(b -> b.getId() == 3L).count());
+    }
+
+    @Test
+    void search_shouldPage() {
+        Page<BookResponse> first = index.search("the", PageRequest.of(0, 1));
+        Page<BookResponse> second = index.search("the", PageRequest.of(1, 1));
+        assertEquals(2, first.getTotalElements());
+        assertNotEquals(first.getContent().get(0).getId(), second.getContent().get(0).getId());
+        assertTrue(index.search("the", PageRequest.of(5, 1)).getContent().isEmpty());
+    }
+
+    @Test
+    void search_shouldExpandAPrefixToItsMostFrequentTerms() {
+        for (int i = 0; i < 64; i++) {
+            index.index(book(100L + i, String.format("Rare%02d", i), "Someone"));
+        }
+        index.index(book(200L, "Rarezz", "Someone"));
+        index.index(book(201L, "Rarezz Again", "Someone"));
+
+        Page<BookResponse> page = index.search("rare", PageRequest.of(0, 100));
+
+        // rarezz, and 63 of the terms found in one book each
+        assertEquals(65, page.getTotalElements());
+        assertTrue(page.getContent().stream().map(BookResponse::getId).toList().containsAll(List.of(200L, 201L)));
+    }
+
+    @Test
+    void search_shouldFindTheSameTopHitsAsAFullRanking() {
+        String[] words = {"red", "green", "blue", "river", "stone", "night", "reader", "rest"};
+        Random random = new Random(7);
+        BookSearchIndex large = new BookSearchIndex(null, null, null);
+        List<List<String>> tokens = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            StringBuilder title = new StringBuilder(words[random.nextInt(words.length)]);
+            for (int i = random.nextInt(4); i > 0; i--) {
+                title.append(' ').append(words[random.nextInt(words.length)]);
+            }
+            String author = words[random.nextInt(words.length)] + " Author";
+            large.index(book(id, title.toString(), author));
+            tokens.add(BookSearchIndex.tokenize(title + " " + author));
+        }
+
+        for (String query : List.of("red", "re", "red river", "stone night re", "blue blue", "night gr")) {
+            List<String> terms = BookSearchIndex.tokenize(query);
+            String prefix = terms.get(terms.size() - 1);
+            long matching = tokens.stream().filter(book -> book.stream().anyMatch(token ->
+                    terms.subList(0, terms.size() - 1).contains(token) || token.startsWith(prefix))).count();
+            Page<BookResponse> all = large.search(query, PageRequest.of(0, 2000));
+            List<Long> ranking = all.getContent().stream().map(BookResponse::getId).toList();
+            assertEquals(matching, all.getTotalElements(), query);
+            assertEquals(matching, ranking.stream().distinct().count(), query);
+
+            for (int size : new int[]{1, 10, 25}) {
+                for (int page = 0; page < 3; page++) {
+                    List<Long> hits = large.search(query, PageRequest.of(page, size)).getContent().stream()
+                            .map(BookResponse::getId).toList();
+                    assertEquals(ranking.subList(page * size, (page + 1) * size), hits, query + " page " + page);
+                }
+            }
+        }
+    }
+
+    @Test
+    void indexAndRemove_shouldUpdateIncrementally() {
+        index.index(book(3L, "Refactoring", "Martin Fowler"));
+        assertEquals(1, index.search("clean", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(3L, index.search("refactoring", PageRequest.of(0, 10)).getContent().get(0).getId());
+
+        index.remove(3L);
+        index.remove(99L);
+        assertEquals(0, index.search("refactoring", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void concurrentReadsAndWrites_shouldNotFail() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        long id = 1000L + thread * 1000 + i;
+                        index.index(book(id, "Concurrent Title " + i, "Writer " + thread));
+                        index.search("concurrent writ", PageRequest.of(0, 5));
+                        index.remove(id);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void rebuild_shouldKeepServingAndKeepWritesMadeWhileReadingTheTable() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        BookSearchIndex rebuilt = new BookSearchIndex(bookRepository, mock(PlatformTransactionManager.class), entityManager);
+        rebuilt.index(book(1L, "The Hobbit", "J.R.R. Tolkien"));
+        rebuilt.index(book(2L, "Old Title", "Someone"));
+        Book hobbit = Book.builder().id(1L).title("The Hobbit").author("J.R.R. Tolkien").publishedYear(2000).build();
+        Book stale = Book.builder().id(2L).title("Old Title").author("Someone").publishedYear(2000).build();
+        when(bookRepository.streamAll()).thenAnswer(invocation -> Stream.of(hobbit, stale).peek(book -> {
+            if (book == hobbit) {
+                // The old index still answers while the table is read
+                assertEquals(1, rebuilt.search("hobbit", PageRequest.of(0, 10)).getTotalElements());
+                rebuilt.index(book(2L, "New Title", "Someone"));
+                rebuilt.index(book(3L, "Added Meanwhile", "Someone"));
+            }
+        }));
+
+        rebuilt.rebuild();
+
+        assertEquals(3, rebuilt.size());
+        assertEquals(0, rebuilt.search("old", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(2L, rebuilt.search("new", PageRequest.of(0, 10)).getContent().get(0).getId());
+        assertEquals(3L, rebuilt.search("meanwhile", PageRequest.of(0, 10)).getContent().get(0).getId());
+        verify(entityManager).detach(hobbit);
+        verify(entityManager).detach(stale);
+    }
+
+    private static BookResponse book(Long id, String title, String author) {
+        return BookResponse.builder().id(id).title(title).author(author).publishedYear(2000).build();
+    }
+}
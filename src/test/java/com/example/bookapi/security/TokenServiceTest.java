@@ -0,0 +1,65 @@
+package com.example.bookapi.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final TokenService tokenService =
+            new TokenService(SECRET, Duration.ofMinutes(15), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    private static Authentication principal(String name, String... authorities) {
+        return UsernamePasswordAuthenticationToken.authenticated(
+                name, null, AuthorityUtils.createAuthorityList(authorities));
+    }
+
+    @Test
+    void issuedTokenShouldRoundTrip() {
+        String token = tokenService.issue(principal("al:ice", "ROLE_USER", "ROLE_ADMIN"));
+
+        Authentication authentication = tokenService.verify(token).orElseThrow();
+        assertEquals("al:ice", authentication.getName());
+        assertTrue(authentication.isAuthenticated());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"), authentication.getAuthorities());
+    }
+
+    @Test
+    void tamperedTokenShouldBeRejected() {
+        String token = tokenService.issue(principal("user", "ROLE_USER"));
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("9999999999:ROLE_ADMIN:user".getBytes());
+
+        assertTrue(tokenService.verify(forgedPayload + token.substring(token.indexOf('.'))).isEmpty());
+        assertTrue(tokenService.verify(token + "x").isEmpty());
+        assertTrue(tokenService.verify("not-a-token").isEmpty());
+        assertTrue(tokenService.verify("!!.!!").isEmpty());
+    }
+
+    @Test
+    void tokenFromAnotherKeyShouldBeRejected() {
+        TokenService other = new TokenService("", Duration.ofMinutes(15), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertTrue(tokenService.verify(other.issue(principal("user", "ROLE_USER"))).isEmpty());
+    }
+
+    @Test
+    void expiredTokenShouldBeRejected() {
+        String token = tokenService.issue(principal("user", "ROLE_USER"));
+        TokenService later = new TokenService(SECRET, Duration.ofMinutes(15),
+                Clock.fixed(NOW.plus(Duration.ofMinutes(16)), ZoneOffset.UTC));
+
+        assertTrue(later.verify(token).isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bookapi.service;
+
+import com.example.bookapi.dto.BookPatchRequest;
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.BookResponse;
+import com.example.bookapi.exception.BookVersionMismatchException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Threads increment the published year of one book by reading it and writing it back with the version
+ * they read, retrying on a version conflict. A lost update would leave the year short of the number of
+ * successful writes.
+ */
+// SQL logging off: every retry logs its statements
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrency-test",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN"})
+class BookConcurrencyStressTest {
+    private static final int THREADS = 4;
+    private static final int INCREMENTS_PER_THREAD = 5;
+    private static final int FIRST_YEAR = 1500;
+
+    @Autowired
+    private BookService bookService;
+
+    private interface Write {
+        void apply(BookResponse book);
+    }
+
+    // Every thread increments the same book
+    private long incrementConcurrently(Write write) throws Exception {
+        long id = bookService.create(new BookRequest("Contended", "Author", FIRST_YEAR)).getId();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    while (true) {
+                        try {
+                            write.apply(bookService.findById(id));
+                            break;
+                        } catch (BookVersionMismatchException e) {
+                            // Someone else wrote first; read again
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return id;
+    }
+
+    private void assertNoLostUpdates(long id) {
+        int writes = THREADS * INCREMENTS_PER_THREAD;
+        BookResponse book = bookService.findById(id);
+        assertEquals(FIRST_YEAR + writes, book.getPublishedYear());
+        assertEquals(writes, book.getVersion());
+    }
+
+    @Test
+    void conditionalPatchesShouldNotLoseUpdates() throws Exception {
+        Write patch = book -> bookService.patch(book.getId(),
+                BookPatchRequest.builder().publishedYear(book.getPublishedYear() + 1).build(), book.getVersion());
+
+        assertNoLostUpdates(incrementConcurrently(patch));
+    }
+
+    @Test
+    void conditionalUpdatesShouldNotLoseUpdates() throws Exception {
+        Write put = book -> bookService.update(book.getId(),
+                new BookRequest(book.getTitle(), book.getAuthor(), book.getPublishedYear() + 1), book.getVersion());
+
+        assertNoLostUpdates(incrementConcurrently(put));
+    }
+}
@@ -1,21 +1,39 @@
 package com.example.bookapi.service;
 
+import com.example.bookapi.changes.BookChangeLog;
 import com.example.bookapi.dto.*;
+import com.example.bookapi.etag.CatalogGeneration;
+import com.example.bookapi.exception.InvalidRequestException;
 import com.example.bookapi.model.Book;
+import com.example.bookapi.model.BookChange;
 import com.example.bookapi.repository.BookRepository;
+import com.example.bookapi.exception.BookNotFoundException;
+import com.example.bookapi.exception.BookVersionMismatchException;
+import com.example.bookapi.search.BookIdFilter;
+import com.example.bookapi.search.BookSearchIndex;
 import com.example.bookapi.service.impl.BookServiceImpl;
+import com.example.bookapi.exception.BookBatchValidationException;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,12 +42,31 @@ class BookServiceImplTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BookSearchIndex searchIndex;
+
+    @Mock
+    private BookIdFilter bookIdFilter;
+
+    @Mock
+    private CatalogGeneration catalogGeneration;
+
+    @Mock
+    private BookChangeLog changeLog;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private BookServiceImpl bookService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(bookIdFilter.mightExist(anyLong())).thenReturn(true);
     }
 
     @Test
@@ -45,6 +82,19 @@ class BookServiceImplTest {
         assertEquals("C", responses.get(1).getTitle());
     }
 
+    @Test
+    void exportAll_shouldPassEachBookToConsumerAndDetachIt() {
+        Book first = Book.builder().id(1L).title("A").author("B").publishedYear(2000).build();
+        Book second = Book.builder().id(2L).title("C").author("D").publishedYear(2010).build();
+        when(bookRepository.streamAll()).thenReturn(Stream.of(first, second));
+        List<BookResponse> exported = new ArrayList<>();
+        bookService.exportAll(exported::add);
+        assertEquals(2, exported.size());
+        assertEquals("C", exported.get(1).getTitle());
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
     @Test
     void findAllPaginated_shouldReturnPaginatedBookResponses() {
         // Given
@@ -91,6 +141,49 @@ class BookServiceImplTest {
         assertTrue(response.isLast());
     }
 
+    @Test
+    void findAllByCursor_shouldReturnNextCursorWhenMoreRowsExist() {
+        // Given
+        List<Book> books = List.of(
+                Book.builder().id(3L).title("A").author("B").publishedYear(2000).build(),
+                Book.builder().id(1L).title("C").author("D").publishedYear(2010).build()
+        );
+        Window<Book> window = Window.from(books, i -> ScrollPosition.keyset(), true);
+        when(bookRepository.findBy(ArgumentMatchers.<Specification<Book>>any(), any())).thenReturn(window);
+
+        // When
+        BookCursorPageResponse response = bookService.findAllByCursor(new BookFilter(), BookCursor.start("title", "asc"), 2);
+
+        // Then
+        assertEquals(2, response.getContent().size());
+        assertTrue(response.isHasNext());
+        BookCursor next = BookCursor.decode(response.getNextCursor());
+        assertEquals("title", next.getSortBy());
+        assertEquals(1L, next.getLastId());
+        assertEquals("C", next.getLastValue());
+    }
+
+    @Test
+    void findAllByCursor_shouldOmitNextCursorOnLastPage() {
+        Window<Book> window = Window.from(List.of(), i -> ScrollPosition.keyset(), false);
+        when(bookRepository.findBy(ArgumentMatchers.<Specification<Book>>any(), any())).thenReturn(window);
+        BookCursorPageResponse response = bookService.findAllByCursor(new BookFilter(), BookCursor.start("id", "asc"), 10);
+        assertEquals(0, response.getContent().size());
+        assertFalse(response.isHasNext());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void findAllFiltered_shouldQueryWithSpecification() {
+        Book book = Book.builder().id(1L).title("A").author("B").publishedYear(2000).build();
+        when(bookRepository.findAll(ArgumentMatchers.<Specification<Book>>any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(book), PageRequest.of(0, 10), 1));
+        BookFilter filter = BookFilter.builder().author("B").build();
+        BookPageResponse response = bookService.findAllFiltered(filter, PageRequest.of(0, 10));
+        assertEquals(1, response.getTotalElements());
+        assertEquals("A", response.getContent().get(0).getTitle());
+    }
+
     @Test
     void findById_shouldReturnBookResponse() {
         Book book = Book.builder().id(1L).title("A").author("B").publishedYear(2000).build();
@@ -114,38 +207,162 @@ class BookServiceImplTest {
         BookResponse response = bookService.create(request);
         assertEquals(1L, response.getId());
         assertEquals("A", response.getTitle());
+        verify(searchIndex).index(response);
+        verify(catalogGeneration).changed();
+        verify(changeLog).record(argThat(change -> change.getType() == BookChange.Type.CREATED
+                && change.getBookId() == 1L && "A".equals(change.getTitle())));
     }
 
     @Test
-    void update_shouldUpdateAndReturnBookResponse() {
-        Book existing = Book.builder().id(1L).title("Old").author("Old").publishedYear(1990).build();
+    void create_shouldCountTheChangeEvenIfTheIndexFails() {
+        Book saved = Book.builder().id(1L).title("A").author("B").publishedYear(2000).build();
+        when(bookRepository.save(ArgumentMatchers.any(Book.class))).thenReturn(saved);
+        doThrow(new IllegalStateException("index")).when(searchIndex).index(any());
+        BookRequest request = BookRequest.builder().title("A").author("B").publishedYear(2000).build();
+        assertThrows(IllegalStateException.class, () -> bookService.create(request));
+        verify(catalogGeneration).changed();
+    }
+
+    @Test
+    void createAll_shouldSaveInChunksAndReturnResponses() {
+        List<BookRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requests.add(BookRequest.builder().title("T" + i).author("A").publishedYear(2000).build());
+        }
+        List<BookResponse> responses = bookService.createAll(requests);
+        assertEquals(120, responses.size());
+        assertEquals("T119", responses.get(119).getTitle());
+        // 120 books with the default batch size of 50 -> chunks of 50, 50 and 20
+        verify(bookRepository, times(3)).saveAll(ArgumentMatchers.<List<Book>>any());
+        verify(bookRepository, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+        verify(changeLog, times(120)).record(any());
+    }
+
+    @Test
+    void createAll_shouldRejectWholeBatchIfAnyItemIsInvalid() {
+        List<BookRequest> requests = Arrays.asList(
+                BookRequest.builder().title("A").author("B").publishedYear(2000).build(),
+                BookRequest.builder().title("").author("B").publishedYear(2000).build(),
+                null);
+        BookBatchValidationException ex = assertThrows(BookBatchValidationException.class,
+                () -> bookService.createAll(requests));
+        assertTrue(ex.getErrors().containsKey("[1].title"));
+        assertTrue(ex.getErrors().containsKey("[2]"));
+        verify(bookRepository, never()).saveAll(ArgumentMatchers.<List<Book>>any());
+    }
+
+    @Test
+    void update_shouldIssueOneConditionalUpdate() {
         BookRequest request = BookRequest.builder().title("New").author("New").publishedYear(2020).build();
-        Book updated = Book.builder().id(1L).title("New").author("New").publishedYear(2020).build();
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(bookRepository.save(existing)).thenReturn(updated);
-        BookResponse response = bookService.update(1L, request);
+        when(bookRepository.replace(1L, 3L, "New", "New", 2020)).thenReturn(1);
+        BookResponse response = bookService.update(1L, request, 3L);
         assertEquals("New", response.getTitle());
         assertEquals(2020, response.getPublishedYear());
+        assertEquals(4L, response.getVersion());
+        verify(bookRepository).replace(1L, 3L, "New", "New", 2020);
+        verifyNoMoreInteractions(bookRepository);
+        verify(changeLog).record(argThat(change -> change.getType() == BookChange.Type.REPLACED
+                && change.getVersion() == 4L && change.getPublishedYear() == 2020));
+    }
+
+    @Test
+    void update_shouldBaseAnUnconditionalUpdateOnTheCurrentVersion() {
+        Book existing = Book.builder().id(1L).title("Old").author("Old").publishedYear(1990).version(3L).build();
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(bookRepository.replace(1L, 3L, "New", "New", null)).thenReturn(1);
+        BookRequest request = BookRequest.builder().title("New").author("New").build();
+        BookResponse response = bookService.update(1L, request, null);
+        assertNull(response.getPublishedYear());
+        assertEquals(4L, response.getVersion());
     }
 
     @Test
     void update_shouldThrowIfNotFound() {
         when(bookRepository.findById(1L)).thenReturn(Optional.empty());
         BookRequest request = BookRequest.builder().title("A").author("B").publishedYear(2000).build();
-        assertThrows(NoSuchElementException.class, () -> bookService.update(1L, request));
+        assertThrows(NoSuchElementException.class, () -> bookService.update(1L, request, null));
     }
 
     @Test
-    void delete_shouldRemoveBook() {
+    void update_shouldTellAVersionConflictFromAMissingBook() {
+        BookRequest request = BookRequest.builder().title("New").author("New").publishedYear(2020).build();
+        when(bookRepository.replace(anyLong(), anyLong(), any(), any(), any())).thenReturn(0);
         when(bookRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(bookRepository).deleteById(1L);
-        assertDoesNotThrow(() -> bookService.delete(1L));
-        verify(bookRepository, times(1)).deleteById(1L);
+        assertThrows(BookVersionMismatchException.class, () -> bookService.update(1L, request, 3L));
+        when(bookRepository.existsById(1L)).thenReturn(false);
+        assertThrows(NoSuchElementException.class, () -> bookService.update(1L, request, 3L));
+        verify(changeLog, never()).record(any());
+    }
+
+    @Test
+    void update_shouldReportAWriteThatRacedTheReadAsAConflict() {
+        Book existing = Book.builder().id(1L).title("Old").author("Old").publishedYear(1990).version(3L).build();
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(bookRepository.replace(anyLong(), anyLong(), any(), any(), any())).thenReturn(0);
+        BookRequest request = BookRequest.builder().title("New").author("New").publishedYear(2020).build();
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.update(1L, request, null));
+    }
+
+    @Test
+    void patch_shouldIssueOneConditionalUpdate() {
+        BookPatchRequest request = BookPatchRequest.builder().publishedYear(2001).build();
+        when(bookRepository.patch(1L, 3L, null, null, 2001)).thenReturn(1);
+        assertEquals(4L, bookService.patch(1L, request, 3L));
+        verify(bookRepository).patch(1L, 3L, null, null, 2001);
+        verifyNoMoreInteractions(bookRepository);
+        verify(searchIndex).update(eq(1L), any());
+        verify(catalogGeneration).changed();
+        // Only the patched field is logged
+        verify(changeLog).record(argThat(change -> change.getType() == BookChange.Type.UPDATED
+                && change.getVersion() == 4L && change.getPublishedYear() == 2001 && change.getTitle() == null));
+    }
+
+    @Test
+    void patch_shouldTellAVersionConflictFromAMissingBook() {
+        BookPatchRequest request = BookPatchRequest.builder().title("New").build();
+        when(bookRepository.patch(anyLong(), anyLong(), any(), any(), any())).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        assertThrows(BookVersionMismatchException.class, () -> bookService.patch(1L, request, 3L));
+        assertThrows(BookNotFoundException.class, () -> bookService.patch(2L, request, 3L));
+        assertThrows(InvalidRequestException.class, () -> bookService.patch(1L, new BookPatchRequest(), 3L));
+    }
+
+    @Test
+    void findById_shouldNotQueryIdsKnownToBeMissing() {
+        when(bookIdFilter.mightExist(1L)).thenReturn(false);
+        BookNotFoundException ex = assertThrows(BookNotFoundException.class, () -> bookService.findById(1L));
+        assertEquals(1L, ex.getId());
+        assertEquals(0, ex.getStackTrace().length);
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void delete_shouldRemoveBookWithOneStatement() {
+        when(bookRepository.deleteBook(1L)).thenReturn(1);
+        assertDoesNotThrow(() -> bookService.delete(1L, null));
+        verify(bookRepository).deleteBook(1L);
+        verifyNoMoreInteractions(bookRepository);
+        verify(searchIndex).remove(1L);
+        verify(bookIdFilter).remove(1L);
+        verify(catalogGeneration).changed();
+        verify(changeLog).record(argThat(change -> change.getType() == BookChange.Type.DELETED));
     }
 
     @Test
     void delete_shouldThrowIfNotFound() {
-        when(bookRepository.existsById(1L)).thenReturn(false);
-        assertThrows(NoSuchElementException.class, () -> bookService.delete(1L));
+        when(bookRepository.deleteBook(1L)).thenReturn(0);
+        assertThrows(NoSuchElementException.class, () -> bookService.delete(1L, null));
+        verify(bookIdFilter, never()).remove(anyLong());
+    }
+
+    @Test
+    void delete_shouldOnlyRemoveTheExpectedVersion() {
+        when(bookRepository.deleteBook(1L, 3L)).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        assertThrows(BookVersionMismatchException.class, () -> bookService.delete(1L, 3L));
+        verify(bookRepository, never()).deleteBook(1L);
+        verify(searchIndex, never()).remove(anyLong());
+        verifyNoInteractions(catalogGeneration, changeLog);
     }
-} 
\ No newline at end of file
+}
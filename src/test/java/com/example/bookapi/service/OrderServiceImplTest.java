@@ -0,0 +1,77 @@
+package com.example.bookapi.service;
+
+import com.example.bookapi.dto.OrderRequest;
+import com.example.bookapi.dto.OrderResponse;
+import com.example.bookapi.model.Order;
+import com.example.bookapi.model.User;
+import com.example.bookapi.repository.OrderRepository;
+import com.example.bookapi.repository.UserRepository;
+import com.example.bookapi.service.impl.OrderServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderServiceImplTest {
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void placeOrder_shouldSaveOrderAndIncrementTotals() {
+        User user = User.builder().id(1L).username("alice").role(User.Role.USER).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(orderRepository.save(ArgumentMatchers.any(Order.class)))
+                .thenReturn(Order.builder().id(10L).amount(25.0).user(user).build());
+
+        OrderResponse response = orderService.placeOrder(OrderRequest.builder().userId(1L).amount(25.0).build());
+
+        assertEquals(10L, response.getId());
+        assertEquals(1L, response.getUserId());
+        verify(userRepository).adjustOrderTotals(1L, 1, 25.0);
+    }
+
+    @Test
+    void placeOrder_shouldThrowIfUserNotFound() {
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class,
+                () -> orderService.placeOrder(OrderRequest.builder().userId(1L).amount(5.0).build()));
+        verify(orderRepository, never()).save(ArgumentMatchers.any());
+    }
+
+    @Test
+    void cancelOrder_shouldDeleteOrderAndDecrementTotals() {
+        User user = User.builder().id(1L).username("alice").role(User.Role.USER).build();
+        Order order = Order.builder().id(10L).amount(25.0).user(user).build();
+        when(orderRepository.findById(10L)).thenReturn(Optional.of(order));
+
+        orderService.cancelOrder(10L);
+
+        verify(orderRepository).delete(order);
+        verify(userRepository).adjustOrderTotals(1L, -1, -25.0);
+    }
+
+    @Test
+    void cancelOrder_shouldThrowIfNotFound() {
+        when(orderRepository.findById(10L)).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class, () -> orderService.cancelOrder(10L));
+        verify(userRepository, never()).adjustOrderTotals(anyLong(), anyLong(), anyDouble());
+    }
+}
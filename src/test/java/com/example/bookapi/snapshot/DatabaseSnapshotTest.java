@@ -0,0 +1,167 @@
+package com.example.bookapi.snapshot;
+
+import com.example.bookapi.changes.BookChangeLog;
+import com.example.bookapi.dto.BookChangePageResponse;
+import com.example.bookapi.dto.BookChangeResponse;
+import com.example.bookapi.dto.BookRequest;
+import com.example.bookapi.dto.SnapshotResponse;
+import com.example.bookapi.exception.ChangeCursorExpiredException;
+import com.example.bookapi.model.Book;
+import com.example.bookapi.model.BookChange;
+import com.example.bookapi.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Restores replace whole tables, so this class gets its own database rather than the shared testdb
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot-test",
+        "book-api.snapshot.path=target/snapshot-test/bookapi.snapshot"})
+@AutoConfigureMockMvc
+class DatabaseSnapshotTest {
+    @Autowired
+    private DatabaseSnapshot databaseSnapshot;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookChangeLog changeLog;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRestoreTablesAndMoveIdGeneratorsPastRestoredRows() throws IOException {
+        jdbcTemplate.update("DELETE FROM book");
+        jdbcTemplate.update("INSERT INTO book (id, title, author, published_year, version) VALUES (7, 'Dune', 'Frank Herbert', 1965, 3)");
+        jdbcTemplate.update("INSERT INTO book (id, title, author, published_year) VALUES (120, 'Unknown Year', 'Anon', NULL)");
+        List<Map<String, Object>> books = jdbcTemplate.queryForList("SELECT * FROM book ORDER BY id");
+        List<Map<String, Object>> users = jdbcTemplate.queryForList("SELECT * FROM app_user ORDER BY id");
+        List<Map<String, Object>> orders = jdbcTemplate.queryForList("SELECT * FROM book_order ORDER BY id");
+        Path file = tempDir.resolve("bookapi.snapshot");
+
+        SnapshotResponse dumped = databaseSnapshot.dump(file);
+        jdbcTemplate.update("DELETE FROM book_order");
+        jdbcTemplate.update("DELETE FROM book WHERE id = 7");
+        jdbcTemplate.update("INSERT INTO book (id, title, author, published_year) VALUES (8, 'Gone', 'Nobody', 2000)");
+        SnapshotResponse restored = databaseSnapshot.restore(file);
+
+        assertEquals(2, dumped.getBooks());
+        assertEquals(users.size(), dumped.getUsers());
+        assertEquals(orders.size(), dumped.getOrders());
+        assertEquals(Files.size(file), dumped.getBytes());
+        assertEquals(dumped.getBooks(), restored.getBooks());
+        assertEquals(dumped.getOrders(), restored.getOrders());
+        assertEquals(books, jdbcTemplate.queryForList("SELECT * FROM book ORDER BY id"));
+        // An If-Match taken before the snapshot still names the restored version
+        assertEquals(3L, jdbcTemplate.queryForObject("SELECT version FROM book WHERE id = 7", Long.class));
+        assertEquals(users, jdbcTemplate.queryForList("SELECT * FROM app_user ORDER BY id"));
+        assertEquals(orders, jdbcTemplate.queryForList("SELECT * FROM book_order ORDER BY id"));
+
+        // Hibernate's pooled optimizer hands out (value - allocationSize, value], so that block must start past 120
+        Long nextBlockTop = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR book_seq", Long.class);
+        assertTrue(nextBlockTop - Book.ID_ALLOCATION_SIZE >= 120);
+        Long maxOrderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM book_order", Long.class);
+        jdbcTemplate.update("INSERT INTO book_order (amount, user_id) VALUES (1.0, ?)", users.get(0).get("ID"));
+        assertEquals(maxOrderId + 1, jdbcTemplate.queryForObject("SELECT MAX(id) FROM book_order", Long.class));
+    }
+
+    @Test
+    void restoreShouldStartTheChangeLogOverFromTheRestoredBooks() throws IOException {
+        jdbcTemplate.update("DELETE FROM book");
+        long bookId = bookService.create(new BookRequest("Dune", "Frank Herbert", 1965)).getId();
+        long cursor = changeLog.changesSince(0, BookChangeLog.MAX_PAGE_SIZE).getNextSince();
+        Path file = tempDir.resolve("bookapi.snapshot");
+        databaseSnapshot.dump(file);
+
+        databaseSnapshot.restore(file);
+
+        BookChangePageResponse replay = changeLog.changesSince(0, BookChangeLog.MAX_PAGE_SIZE);
+        assertEquals(List.of(bookId), replay.getChanges().stream().map(BookChangeResponse::getBookId).toList());
+        assertEquals(BookChange.Type.CREATED, replay.getChanges().get(0).getType());
+        assertEquals("Dune", replay.getChanges().get(0).getTitle());
+        // Numbering continues, but cursors into the replaced log no longer apply
+        assertTrue(replay.getNextSince() > cursor);
+        assertThrows(ChangeCursorExpiredException.class, () -> changeLog.changesSince(cursor, 10));
+    }
+
+    @Test
+    void shouldRestoreVersion1SnapshotsWithBooksAtVersion0() throws IOException {
+        Path file = tempDir.resolve("v1.snapshot");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(0x424B5350);
+            out.writeInt(1);
+            out.writeBoolean(true);
+            out.writeLong(5);
+            out.writeBoolean(true);
+            out.writeUTF("Dune");
+            out.writeBoolean(true);
+            out.writeUTF("Frank Herbert");
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+        }
+
+        // The old file has no users or orders, and other tests expect the seeded ones
+        Path seeded = tempDir.resolve("seeded.snapshot");
+        databaseSnapshot.dump(seeded);
+        try {
+            SnapshotResponse restored = databaseSnapshot.restore(file);
+
+            assertEquals(1, restored.getBooks());
+            assertEquals(0, restored.getUsers());
+            assertEquals(Map.of("TITLE", "Dune", "VERSION", 0L),
+                    jdbcTemplate.queryForMap("SELECT title, version FROM book WHERE id = 5"));
+        } finally {
+            databaseSnapshot.restore(seeded);
+        }
+    }
+
+    @Test
+    void shouldRejectFilesThatAreNotSnapshots() throws IOException {
+        Path file = tempDir.resolve("not-a-snapshot");
+        Files.writeString(file, "id,title\n1,Dune\n");
+
+        assertThrows(IOException.class, () -> databaseSnapshot.restore(file));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void snapshotEndpointShouldRequireAdmin() throws Exception {
+        mockMvc.perform(post("/admin/snapshot"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void snapshotEndpointShouldWriteConfiguredPath() throws Exception {
+        mockMvc.perform(post("/admin/snapshot"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.path").value("target/snapshot-test/bookapi.snapshot"))
+                .andExpect(jsonPath("$.users").isNumber());
+
+        assertTrue(Files.size(Path.of("target/snapshot-test/bookapi.snapshot")) > 0);
+    }
+}